@@ -0,0 +1,471 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import unikl.disco.calculator.network.AnalysisPlan;
+import unikl.disco.calculator.network.AnalysisType;
+import unikl.disco.calculator.network.Flow;
+import unikl.disco.calculator.network.Network;
+import unikl.disco.calculator.network.Vertex;
+import unikl.disco.calculator.optimization.BoundType;
+import unikl.disco.calculator.optimization.OptimizationType;
+import unikl.disco.misc.FileOperationException;
+
+/**
+ * Runs analyses without the GUI, see {@link SNC#main(String[])}. The
+ * queries are read from job files, in which each line describes one job:
+ * <pre>
+ * network, flow, vertex, analysis, bound, value, optimizer, thetaGranularity, hoelderGranularity
+ * </pre>
+ * The network is a file as loaded by {@link Network#load}, relative paths
+ * are resolved against the directory of the job file. Flows and vertices
+ * are given by their alias or ID, analysis, bound and optimizer by the
+ * names of the {@link AnalysisType}, {@link BoundType} and
+ * {@link OptimizationType} constants. Empty lines and lines starting with
+ * '#' are ignored. Each network file is loaded once, the jobs are carried
+ * out in parallel, each of them on its own {@link AnalysisPlan}. Jobs of
+ * the {@link AnalysisType#DETERMINISTIC_ANA} compute the deterministic
+ * bound, their value and optimizer are ignored. The results are written as
+ * CSV or JSON in the order of the jobs, failed jobs carry an error message.
+ *
+ * @author Sebastian Henningsen
+ */
+public class BatchRunner {
+
+    /**
+     * The command line usage
+     */
+    public static final String USAGE = "Usage: SNC [-p threads] [-f csv|json] [-o output] jobfile...\n"
+            + "Each line of a job file reads: network, flow, vertex, analysis, bound, value, optimizer, thetaGranularity, hoelderGranularity\n"
+            + "Analyses: " + Arrays.toString(AnalysisType.values()).replace("[", "").replace("]", "") + "\n"
+            + "Bounds: " + Arrays.toString(BoundType.values()).replace("[", "").replace("]", "") + "\n"
+            + "Optimizers: " + Arrays.toString(OptimizationType.values()).replace("[", "").replace("]", "");
+
+    private static final int FIELDS = 9;
+
+    private BatchRunner() {
+    }
+
+    /**
+     * Runs the jobs given on the command line and writes their results.
+     * Messages of the analyses, which are usually printed to the standard
+     * output, are redirected to the standard error meanwhile, such that
+     * the standard output only carries the results.
+     *
+     * @param args the command line arguments, see {@link #USAGE}
+     * @return the exit code: 0 if all jobs succeeded, 1 if some failed and 2
+     * if the arguments or job files are invalid
+     */
+    public static int run(String[] args) {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        String format = null;
+        File output = null;
+        List<File> jobFiles = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-p":
+                        parallelism = Math.max(1, Integer.parseInt(args[++i]));
+                        break;
+                    case "-f":
+                        format = args[++i].toLowerCase(Locale.ROOT);
+                        break;
+                    case "-o":
+                        output = new File(args[++i]);
+                        break;
+                    default:
+                        if (args[i].startsWith("-")) {
+                            System.err.println("Unknown option " + args[i]);
+                            System.err.println(USAGE);
+                            return 2;
+                        }
+                        jobFiles.add(new File(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            System.err.println(USAGE);
+            return 2;
+        }
+        if (format == null) {
+            format = output != null && output.getName().toLowerCase(Locale.ROOT).endsWith(".json") ? "json" : "csv";
+        }
+        if (jobFiles.isEmpty() || !(format.equals("csv") || format.equals("json"))) {
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        PrintStream results = System.out;
+        System.setOut(System.err);
+        try {
+            List<Job> jobs = new ArrayList<>();
+            for (File jobFile : jobFiles) {
+                jobs.addAll(readJobs(jobFile));
+            }
+            execute(jobs, parallelism);
+            OutputStream stream = output != null ? new FileOutputStream(output) : results;
+            Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+            try {
+                if (format.equals("json")) {
+                    writeJSON(jobs, writer);
+                } else {
+                    writeCSV(jobs, writer);
+                }
+            } finally {
+                writer.flush();
+                if (output != null) {
+                    writer.close();
+                }
+            }
+            for (Job job : jobs) {
+                if (job.error != null) {
+                    return 1;
+                }
+            }
+            return 0;
+        } catch (IOException | FileOperationException e) {
+            System.err.println(e.getMessage() + (e instanceof FileOperationException ? " " + ((FileOperationException) e).getLine() : ""));
+            return 2;
+        } finally {
+            System.setOut(results);
+        }
+    }
+
+    /**
+     * Reads the jobs of a job file.
+     *
+     * @param jobFile the job file
+     * @return the jobs in the order of the file
+     * @throws IOException if the file can't be read
+     * @throws FileOperationException if a line is malformed
+     */
+    public static List<Job> readJobs(File jobFile) throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        File directory = jobFile.getAbsoluteFile().getParentFile();
+        try (BufferedReader br = new BufferedReader(new FileReader(jobFile))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.trim().isEmpty() || line.trim().startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                if (parts.length != FIELDS) {
+                    throw new FileOperationException("A job needs " + FIELDS + " comma separated entries, but has " + parts.length + ".", line);
+                }
+                for (int i = 0; i < parts.length; i++) {
+                    parts[i] = parts[i].trim();
+                }
+                File network = new File(parts[0]);
+                if (!network.isAbsolute()) {
+                    network = new File(directory, parts[0]);
+                }
+                try {
+                    jobs.add(new Job(network, parts[1], parts[2],
+                            AnalysisType.valueOf(parts[3].toUpperCase(Locale.ROOT)),
+                            BoundType.valueOf(parts[4].toUpperCase(Locale.ROOT)),
+                            Double.parseDouble(parts[5]),
+                            OptimizationType.valueOf(parts[6].toUpperCase(Locale.ROOT)),
+                            Double.parseDouble(parts[7]),
+                            Double.parseDouble(parts[8])));
+                } catch (IllegalArgumentException e) {
+                    // Also covers malformed numbers
+                    throw new FileOperationException("Invalid job: " + e.getMessage(), line);
+                }
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Carries out the jobs in parallel. Each network file is loaded once.
+     * Errors of single jobs are stored in the jobs, see
+     * {@link Job#getError()}.
+     *
+     * @param jobs the jobs
+     * @param parallelism the number of jobs carried out at the same time
+     */
+    public static void execute(List<Job> jobs, int parallelism) {
+        // Networks are loaded one after another, since loading prints to the shared output
+        final Map<File, Network> networks = new HashMap<>();
+        final Map<File, RuntimeException> loadErrors = new HashMap<>();
+        for (Job job : jobs) {
+            File file = job.network.getAbsoluteFile();
+            if (!networks.containsKey(file) && !loadErrors.containsKey(file)) {
+                try {
+                    networks.put(file, Network.load(file, false));
+                } catch (RuntimeException e) {
+                    loadErrors.put(file, e);
+                }
+            }
+        }
+
+        // The instance is created up front, the jobs share it
+        SNC.getInstance();
+        List<Callable<Void>> tasks = new ArrayList<>(jobs.size());
+        for (final Job job : jobs) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    File file = job.network.getAbsoluteFile();
+                    if (loadErrors.containsKey(file)) {
+                        job.error = describe(loadErrors.get(file));
+                    } else {
+                        job.execute(networks.get(file));
+                    }
+                    return null;
+                }
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // The jobs catch their exceptions, only errors of the JVM remain
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Writes the results as CSV with a header line.
+     *
+     * @param jobs the executed jobs
+     * @param writer the destination
+     * @throws IOException
+     */
+    public static void writeCSV(List<Job> jobs, Writer writer) throws IOException {
+        writer.write("job,network,flow,vertex,analysis,bound,value,optimizer,thetaGranularity,hoelderGranularity,result,milliseconds,error");
+        writer.write(System.lineSeparator());
+        for (int i = 0; i < jobs.size(); i++) {
+            Job job = jobs.get(i);
+            writer.write((i + 1) + "," + quoteCSV(job.network.getPath()) + "," + quoteCSV(job.flow) + "," + quoteCSV(job.vertex) + ","
+                    + job.analysisType.name() + "," + job.boundType.name() + "," + job.value + "," + job.optAlgorithm.name() + ","
+                    + job.thetaGran + "," + job.hoelderGran + "," + job.result + "," + job.milliseconds + ","
+                    + (job.error != null ? quoteCSV(job.error) : ""));
+            writer.write(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Writes the results as a JSON array of objects. Results, which are not
+     * finite, are written as null.
+     *
+     * @param jobs the executed jobs
+     * @param writer the destination
+     * @throws IOException
+     */
+    public static void writeJSON(List<Job> jobs, Writer writer) throws IOException {
+        writer.write("[");
+        for (int i = 0; i < jobs.size(); i++) {
+            Job job = jobs.get(i);
+            writer.write(i == 0 ? System.lineSeparator() : "," + System.lineSeparator());
+            writer.write("  {\"job\": " + (i + 1)
+                    + ", \"network\": " + quoteJSON(job.network.getPath())
+                    + ", \"flow\": " + quoteJSON(job.flow)
+                    + ", \"vertex\": " + quoteJSON(job.vertex)
+                    + ", \"analysis\": " + quoteJSON(job.analysisType.name())
+                    + ", \"bound\": " + quoteJSON(job.boundType.name())
+                    + ", \"value\": " + numberJSON(job.value)
+                    + ", \"optimizer\": " + quoteJSON(job.optAlgorithm.name())
+                    + ", \"thetaGranularity\": " + numberJSON(job.thetaGran)
+                    + ", \"hoelderGranularity\": " + numberJSON(job.hoelderGran)
+                    + ", \"result\": " + numberJSON(job.result)
+                    + ", \"milliseconds\": " + numberJSON(job.milliseconds)
+                    + ", \"error\": " + (job.error != null ? quoteJSON(job.error) : "null") + "}");
+        }
+        writer.write(System.lineSeparator() + "]" + System.lineSeparator());
+    }
+
+    private static String quoteCSV(String text) {
+        String singleLine = text.replaceAll("\\s+", " ");
+        if (singleLine.contains(",") || singleLine.contains("\"")) {
+            return "\"" + singleLine.replace("\"", "\"\"") + "\"";
+        }
+        return singleLine;
+    }
+
+    private static String quoteJSON(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String numberJSON(double number) {
+        return Double.isNaN(number) || Double.isInfinite(number) ? "null" : Double.toString(number);
+    }
+
+    private static String describe(Throwable e) {
+        // Analysis exceptions usually wrap the actual cause
+        Throwable cause = e.getCause() != null && e.getMessage() != null && e.getMessage().startsWith(e.getCause().getClass().getName()) ? e.getCause() : e;
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+
+    /**
+     * A single query of a job file and its result.
+     */
+    public static class Job {
+
+        private final File network;
+        private final String flow;
+        private final String vertex;
+        private final AnalysisType analysisType;
+        private final BoundType boundType;
+        private final double value;
+        private final OptimizationType optAlgorithm;
+        private final double thetaGran;
+        private final double hoelderGran;
+
+        private volatile double result = Double.NaN;
+        private volatile double milliseconds = Double.NaN;
+        private volatile String error;
+
+        /**
+         * Creates a job, see {@link SNC#optimizeSymbolicFunction}
+         *
+         * @param network the network file
+         * @param flow the alias or ID of the flow of interest
+         * @param vertex the alias or ID of the vertex of interest
+         * @param analysisType the analysis
+         * @param boundType the type of bound
+         * @param value the bound value or violation probability
+         * @param optAlgorithm the optimization algorithm
+         * @param thetaGran the granularity of the theta-parameter
+         * @param hoelderGran the granularity of the Hoelder parameters
+         */
+        public Job(File network, String flow, String vertex, AnalysisType analysisType, BoundType boundType, double value,
+                OptimizationType optAlgorithm, double thetaGran, double hoelderGran) {
+            this.network = network;
+            this.flow = flow;
+            this.vertex = vertex;
+            this.analysisType = analysisType;
+            this.boundType = boundType;
+            this.value = value;
+            this.optAlgorithm = optAlgorithm;
+            this.thetaGran = thetaGran;
+            this.hoelderGran = hoelderGran;
+        }
+
+        private void execute(Network nw) {
+            long start = System.nanoTime();
+            try {
+                SNC snc = SNC.getInstance();
+                AnalysisPlan plan = null;
+                // The jobs of a network read it concurrently, only the analyses themselves work on copies
+                synchronized (nw) {
+                    Flow flowOfInterest = findFlow(nw, flow);
+                    Vertex vertexOfInterest = findVertex(nw, vertex);
+                    if (analysisType == AnalysisType.DETERMINISTIC_ANA) {
+                        result = snc.screenNetwork(flowOfInterest, vertexOfInterest, snc.convertBoundTypes(boundType), nw);
+                    } else {
+                        plan = snc.planAnalysis(flowOfInterest, vertexOfInterest, analysisType, snc.convertBoundTypes(boundType), nw);
+                    }
+                }
+                if (plan != null) {
+                    result = snc.optimizePlan(plan, thetaGran, hoelderGran, optAlgorithm, boundType, value);
+                }
+            } catch (RuntimeException e) {
+                error = describe(e);
+            }
+            milliseconds = (System.nanoTime() - start) / 1e6;
+        }
+
+        private static Flow findFlow(Network nw, String name) {
+            for (Flow candidate : nw.getFlows().values()) {
+                if (candidate.getAlias().equals(name)) {
+                    return candidate;
+                }
+            }
+            Flow byID = name.matches("\\d+") ? nw.getFlow(Integer.parseInt(name)) : null;
+            if (byID == null) {
+                throw new FileOperationException("There is no flow " + name + ".");
+            }
+            return byID;
+        }
+
+        private static Vertex findVertex(Network nw, String name) {
+            Vertex byAlias = nw.getVertexByName(name);
+            if (byAlias != null) {
+                return byAlias;
+            }
+            Vertex byID = name.matches("\\d+") ? nw.getVertex(Integer.parseInt(name)) : null;
+            if (byID == null) {
+                throw new FileOperationException("There is no vertex " + name + ".");
+            }
+            return byID;
+        }
+
+        /**
+         *
+         * @return the bound, NaN if the job failed or has not been executed
+         */
+        public double getResult() {
+            return result;
+        }
+
+        /**
+         *
+         * @return the error message, null if the job succeeded
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         *
+         * @return the time the job took in milliseconds
+         */
+        public double getMilliseconds() {
+            return milliseconds;
+        }
+    }
+}
@@ -20,7 +20,6 @@ package unikl.disco.calculator;
 
 import java.awt.EventQueue;
 import java.io.File;
-import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -35,15 +34,24 @@ import unikl.disco.calculator.commands.Command;
 import unikl.disco.calculator.commands.ConvoluteVerticesCommand;
 import unikl.disco.calculator.gui.MainWindow;
 import unikl.disco.calculator.network.AbstractAnalysis;
+import unikl.disco.calculator.network.AnalysisCache;
 import unikl.disco.calculator.network.AnalysisFactory;
+import unikl.disco.calculator.network.AnalysisPlan;
 import unikl.disco.calculator.network.AnalysisType;
 import unikl.disco.calculator.network.Analyzer;
+import unikl.disco.calculator.network.ComponentAnalysis;
 import unikl.disco.calculator.network.ArrivalNotAvailableException;
 import unikl.disco.calculator.network.DeadlockException;
+import unikl.disco.calculator.network.DeterministicAnalysis;
 import unikl.disco.calculator.network.Flow;
+import unikl.disco.calculator.network.IncrementalAnalysis;
 import unikl.disco.calculator.network.LadderAnalysis;
 import unikl.disco.calculator.network.Network;
+import unikl.disco.calculator.network.NetworkFingerprint;
 import unikl.disco.calculator.network.NetworkListener;
+import unikl.disco.calculator.network.SegmentServiceCache;
+import unikl.disco.calculator.network.SimpleAnalysis;
+import unikl.disco.calculator.network.UtilizationAnalyzer;
 import unikl.disco.calculator.network.Vertex;
 import unikl.disco.calculator.optimization.BoundFactory;
 import unikl.disco.calculator.optimization.BoundType;
@@ -58,7 +66,6 @@ import unikl.disco.calculator.symbolic_math.ServerOverloadException;
 import unikl.disco.calculator.symbolic_math.ThetaOutOfBoundException;
 import unikl.disco.calculator.symbolic_math.functions.ConstantFunction;
 import unikl.disco.misc.AnalysisException;
-import unikl.disco.misc.FileOperationException;
 import unikl.disco.misc.UndoRedoStack;
 
 /**
@@ -79,6 +86,14 @@ public class SNC {
     private static SNC singletonInstance;
     private final List<Network> networks;
     private final int currentNetworkPosition;
+    // Keeps the intermediate results of simple analyses between changes of the network
+    private IncrementalAnalysis incrementalAnalysis;
+    // Results of previous analyses of identical networks, null if disabled (the default)
+    private volatile AnalysisCache analysisCache;
+    // Leftover services of tandem segments shared by the analyses, null if disabled
+    private volatile SegmentServiceCache segmentServiceCache = new SegmentServiceCache(SegmentServiceCache.DEFAULT_CAPACITY);
+    // Whether flows sharing route and priorities are aggregated, when all flows are analyzed
+    private volatile boolean flowAggregation;
 
     private SNC() {
         networks = new ArrayList<>();
@@ -101,9 +116,10 @@ public class SNC {
 
     /**
      * The main method of the program, used to start the GUI and initialize
-     * everything
+     * everything. If arguments are given, no GUI is started, instead the
+     * jobs of the given job files are run, see {@link BatchRunner}.
      *
-     * @param args Command line arguments - not used at the moment
+     * @param args Command line arguments, see {@link BatchRunner#USAGE}
      * @throws InvocationTargetException
      * @throws InterruptedException
      * @throws ArrivalNotAvailableException
@@ -117,6 +133,9 @@ public class SNC {
             ArrivalNotAvailableException, BadInitializationException, DeadlockException, ThetaOutOfBoundException,
             ParameterMismatchException, ServerOverloadException {
 
+        if (args.length > 0) {
+            System.exit(BatchRunner.run(args));
+        }
         SNC snc = SNC.getInstance();
         final MainWindow main = new MainWindow();
 
@@ -213,7 +232,9 @@ public class SNC {
     /**
      * This relays the command of calculating a symbolic (not optimized) bound
      * to the corresponding {@link AbstractAnalysis}-subclass. The result is
-     * returned in arrival-representation.
+     * returned in arrival-representation. If the same analysis of an
+     * identical network is found in the {@link AnalysisCache}, the analysis
+     * is skipped.
      *
      * @param flow the <code>Flow</code> of interest.
      * @param vertex the <code>Vertex</code> of interest.
@@ -226,23 +247,163 @@ public class SNC {
 
         //Preparations
         Arrival bound = null;
-        File file = null;
-        try {
-            file = File.createTempFile("SNC", "txt");
-        } catch (IOException e) {
-            throw new FileOperationException("Error while analyzing Network: " + e.getMessage());
+        AnalysisCache cache = analysisCache;
+        String key = null;
+        if (cache != null) {
+            key = AnalysisCache.key(new NetworkFingerprint(nw), flow.getID(), vertex.getID(), anaType, boundtype);
+            bound = cache.get(key, nw);
+            if (bound != null) {
+                return bound;
+            }
         }
-        this.saveNetwork(file);
-        Network nwCopy = Network.load(file, false);
-        Analyzer analyzer = AnalysisFactory.getAnalyzer(anaType, nwCopy, nwCopy.getVertices(), nwCopy.getFlows(), flow.getID(), vertex.getID(), boundtype);
         try {
-            bound = analyzer.analyze();
+            if (anaType == AnalysisType.SIMPLE_ANA) {
+                // Simple analyses reuse the results of previous ones, as far as the network did not change
+                bound = getIncrementalAnalysis(nw).analyze(flow.getID(), vertex.getID(), boundtype);
+            } else {
+                // The analysis alters the network, hence it works on an independent copy of the relevant component
+                Network nwCopy = nw.detachedCopy(nw.getComponentOf(vertex.getID()));
+                Analyzer analyzer = AnalysisFactory.getAnalyzer(anaType, nwCopy, nwCopy.getVertices(), nwCopy.getFlows(), flow.getID(), vertex.getID(), boundtype);
+                bound = analyzer.analyze();
+            }
         } catch (ArrivalNotAvailableException | DeadlockException | BadInitializationException e) {
             throw new AnalysisException(e);
         }
+        if (cache != null) {
+            cache.put(key, bound);
+        }
         return bound;
     }
 
+    /**
+     * Computes a deterministic worst-case bound in closed form, see
+     * {@link DeterministicAnalysis}. This is meant as a fast screening
+     * before stochastic bounds are optimized.
+     *
+     * @param flow the <code>Flow</code> of interest.
+     * @param vertex the <code>Vertex</code> of interest.
+     * @param boundtype the type of bound, for output bounds the burst of the
+     * output is returned
+     * @param nw the <code>Network</code> to which the other parameters belong
+     * @return the bound, which is infinite, if a vertex is overloaded
+     */
+    public double screenNetwork(Flow flow, Vertex vertex, AbstractAnalysis.Boundtype boundtype, Network nw) {
+        // The deterministic analysis does not alter the network
+        DeterministicAnalysis analysis = new DeterministicAnalysis(nw, nw.getVertices(), nw.getFlows(), flow.getID(), vertex.getID(), boundtype);
+        try {
+            return analysis.computeBound();
+        } catch (ArrivalNotAvailableException | DeadlockException e) {
+            throw new AnalysisException(e);
+        }
+    }
+
+    /**
+     * Returns the cache of analysis results, which is consulted by
+     * {@link #analyzeNetwork(Flow, Vertex, AnalysisType, AbstractAnalysis.Boundtype, Network)}.
+     * Caching is disabled by default.
+     *
+     * @return the cache or null, if caching is disabled
+     */
+    public AnalysisCache getAnalysisCache() {
+        return analysisCache;
+    }
+
+    /**
+     * Enables or replaces the cache of analysis results, e.g. by one with
+     * an on-disk tier.
+     *
+     * @param analysisCache the new cache, null disables caching
+     */
+    public void setAnalysisCache(AnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+    }
+
+    /**
+     * Returns the cache of leftover services of tandem segments, which is
+     * shared by all analyses of this session.
+     *
+     * @return the cache or null, if caching is disabled
+     */
+    public SegmentServiceCache getSegmentServiceCache() {
+        return segmentServiceCache;
+    }
+
+    /**
+     * Replaces the cache of leftover services of tandem segments.
+     *
+     * @param segmentServiceCache the new cache, null disables caching
+     */
+    public void setSegmentServiceCache(SegmentServiceCache segmentServiceCache) {
+        this.segmentServiceCache = segmentServiceCache;
+    }
+
+    /**
+     * Returns whether flows sharing route and priorities are aggregated by
+     * {@link #analyzeAllFlows(AbstractAnalysis.Boundtype, boolean, Network)}.
+     *
+     * @return true, if flows are aggregated
+     */
+    public boolean isFlowAggregation() {
+        return flowAggregation;
+    }
+
+    /**
+     * Enables the aggregation of flows sharing route and priorities, when
+     * the backlog or output bounds of all flows are analyzed. Each member
+     * of an aggregate is assigned the bounds of the aggregate, which might
+     * be looser than the ones without aggregation. Delay bounds are always
+     * computed without aggregation, since the delay bound of an aggregate
+     * does not bound the delays of its members. Disabled by default.
+     *
+     * @param flowAggregation true, if flows are to be aggregated
+     * @see unikl.disco.calculator.network.FlowAggregation
+     */
+    public void setFlowAggregation(boolean flowAggregation) {
+        this.flowAggregation = flowAggregation;
+    }
+
+    /**
+     * Returns the cache of simple analyses of the given network. The cache
+     * is kept for the most recently analyzed network only.
+     *
+     * @param nw the network to be analyzed
+     * @return the cache of the network
+     */
+    public synchronized IncrementalAnalysis getIncrementalAnalysis(Network nw) {
+        if (incrementalAnalysis == null || incrementalAnalysis.getNetwork() != nw) {
+            if (incrementalAnalysis != null) {
+                incrementalAnalysis.dispose();
+                // Loading a network redirects the listeners of the current one
+                nw.removeListener(incrementalAnalysis);
+            }
+            incrementalAnalysis = new IncrementalAnalysis(nw);
+        }
+        return incrementalAnalysis;
+    }
+
+    /**
+     * Calculates the bounds of all flows in a single pass of a
+     * {@link SimpleAnalysis}, such that the output and leftover service
+     * bounds are computed only once for all flows. Independent components
+     * of the network are analyzed in parallel, see {@link ComponentAnalysis}.
+     * If enabled, flows sharing route and priorities are aggregated, see
+     * {@link #setFlowAggregation(boolean)}.
+     *
+     * @param boundtype the type of bound
+     * @param lastHopsOnly if true, only the bound at the last vertex of each
+     * flow is calculated, otherwise the bounds at all vertices of the route
+     * @param nw the <code>Network</code> to be analyzed
+     * @return the bounds in arrival-representation, indexed by flow ID and
+     * vertex ID
+     */
+    public Map<Integer, Map<Integer, Arrival>> analyzeAllFlows(AbstractAnalysis.Boundtype boundtype, boolean lastHopsOnly, Network nw) {
+        try {
+            return ComponentAnalysis.analyzeAllFlows(nw, boundtype, lastHopsOnly, flowAggregation);
+        } catch (ArrivalNotAvailableException | DeadlockException | BadInitializationException e) {
+            throw new AnalysisException(e);
+        }
+    }
+
     /**
      * Computes an optimized bound for the desired {@link Flow} and
      * {@link Vertex}.
@@ -254,7 +415,8 @@ public class SNC {
      * @param hoelderGran Specifies the optimization granularity of the
      * hoelder-parameter
      * @param analysisType The desired analysis algorithm (see
-     * {@link AnalysisType})
+     * {@link AnalysisType}), deterministic bounds are computed by
+     * {@link #screenNetwork} instead
      * @param optAlgorithm The desired optimization algorithm (see
      * {@link OptimizationType})
      * @param boundType The desired {@link BoundType}
@@ -264,14 +426,92 @@ public class SNC {
      * @param nw The network to which the <code>flow</code> and
      * <code>vertex</code> belong to
      * @return An optimal bound
+     * @throws AnalysisException caused by a {@link ServerOverloadException},
+     * if the vertex depends on an overloaded vertex, see
+     * {@link UtilizationAnalyzer}, or if the
+     * {@link AnalysisType#DETERMINISTIC_ANA} is requested
      */
     public double optimizeSymbolicFunction(Flow flow, Vertex vertex, double thetaGran, double hoelderGran,
             AnalysisType analysisType, OptimizationType optAlgorithm, BoundType boundType, double value, Network nw) {
 
+        if (analysisType == AnalysisType.DETERMINISTIC_ANA) {
+            throw new AnalysisException("The " + analysisType + " computes worst-case bounds, there is no stochastic bound to be optimized.");
+        }
+        AbstractAnalysis.Boundtype analysisBound = convertBoundTypes(boundType);
+        // Unstable configurations are rejected before the expensive analysis and optimization
+        try {
+            new UtilizationAnalyzer(nw).verifyStable(flow.getID(), vertex.getID());
+        } catch (ServerOverloadException e) {
+            throw new AnalysisException(e);
+        }
+        Arrival symbolicBound = analyzeNetwork(flow, vertex, analysisType, analysisBound, nw);
+        return optimizeBound(symbolicBound, thetaGran, hoelderGran, optAlgorithm, boundType, value);
+    }
+
+    /**
+     * Creates an {@link AnalysisPlan} for the desired {@link Flow} and
+     * {@link Vertex}. The plan can be optimized repeatedly for other
+     * arrivals and services, without analyzing the network again, see
+     * {@link #optimizePlan}.
+     *
+     * @param flow the <code>Flow</code> of interest.
+     * @param vertex the <code>Vertex</code> of interest.
+     * @param anaType the type of analysis, which is replayed by the plan
+     * @param boundtype the type of bound
+     * @param nw the <code>Network</code> to which the other parameters
+     * belong, it is not altered
+     * @return the plan
+     */
+    public AnalysisPlan planAnalysis(Flow flow, Vertex vertex, AnalysisType anaType, AbstractAnalysis.Boundtype boundtype, Network nw) {
+        try {
+            return new AnalysisPlan(nw, flow.getID(), vertex.getID(), anaType, boundtype);
+        } catch (ArrivalNotAvailableException | DeadlockException | BadInitializationException e) {
+            throw new AnalysisException(e);
+        }
+    }
+
+    /**
+     * Computes an optimized bound from an {@link AnalysisPlan} for the
+     * arrivals and services currently bound to it, see
+     * {@link #optimizeSymbolicFunction}.
+     *
+     * @param plan the plan, its bound type must match <code>boundType</code>
+     * @param thetaGran Specifies the optimization granularity of the
+     * theta-parameter
+     * @param hoelderGran Specifies the optimization granularity of the
+     * hoelder-parameter
+     * @param optAlgorithm The desired optimization algorithm (see
+     * {@link OptimizationType})
+     * @param boundType The desired {@link BoundType}
+     * @param value Depending on the boundType parameter this is either: A
+     * violation probability (in case of an inverse bound) or a bound value
+     * (otherwise)
+     * @return An optimal bound
+     * @throws AnalysisException caused by a {@link ServerOverloadException},
+     * if the vertex of interest depends on an overloaded vertex
+     */
+    public double optimizePlan(AnalysisPlan plan, double thetaGran, double hoelderGran,
+            OptimizationType optAlgorithm, BoundType boundType, double value) {
+        if (convertBoundTypes(boundType) != plan.getBoundtype()) {
+            throw new AnalysisException("The plan was made for " + plan.getBoundtype() + " bounds, not for " + boundType + " bounds.");
+        }
+        // The optimization alters the Hoelder parameters of the plan, hence it must not be bound or optimized meanwhile
+        synchronized (plan) {
+            try {
+                new UtilizationAnalyzer(plan.getNetwork()).verifyStable(plan.getFlowOfInterest(), plan.getVertexOfInterest());
+            } catch (ServerOverloadException e) {
+                throw new AnalysisException(e);
+            }
+            return optimizeBound(plan.getBound(), thetaGran, hoelderGran, optAlgorithm, boundType, value);
+        }
+    }
+
+    private double optimizeBound(Arrival symbolicBound, double thetaGran, double hoelderGran,
+            OptimizationType optAlgorithm, BoundType boundType, double value) {
+
         double result = Double.NaN;
         double debugVal = Double.NaN;
         AbstractAnalysis.Boundtype analysisBound = convertBoundTypes(boundType);
-        Arrival symbolicBound = analyzeNetwork(flow, vertex, analysisType, analysisBound, nw);
 
         //Backlog values are represented by negative values in the arrival representation
         if (boundType == BoundType.BACKLOG && value > 0) {
@@ -307,7 +547,7 @@ public class SNC {
      * @param boundType The BoundType that should be converted
      * @return An appropriate AbstractAnalysis.BoundType
      */
-    AbstractAnalysis.Boundtype convertBoundTypes(BoundType boundType) {
+    public AbstractAnalysis.Boundtype convertBoundTypes(BoundType boundType) {
         AbstractAnalysis.Boundtype targetBoundType = null;
         if (boundType == BoundType.BACKLOG || boundType == BoundType.INVERSE_BACKLOG) {
             targetBoundType = AbstractAnalysis.Boundtype.BACKLOG;
@@ -24,10 +24,15 @@ import unikl.disco.calculator.network.ConvolutionState;
 import unikl.disco.calculator.network.Flow;
 import unikl.disco.calculator.network.Network;
 import unikl.disco.calculator.network.SimpleEndToEndConvolutor;
+import unikl.disco.calculator.optimization.BoundType;
+import unikl.disco.calculator.optimization.OptimizationType;
 
 /**
  * Convolute two vertices ({@link Vertex}) in a given target network
  * with an arbitrary network in between those nodes.
+ * If optimization parameters are given, only the plan with the best
+ * optimized bound is searched, see
+ * {@link SimpleEndToEndConvolutor#findBestConvolution}.
  * @author Sebastian Henningsen
  */
 public class EndToEndConvolutionCommand implements Command {
@@ -36,6 +41,11 @@ public class EndToEndConvolutionCommand implements Command {
     Network nw;
     SNC snc;
     Flow flowOfInterest;
+    OptimizationType optAlgorithm;
+    BoundType boundType;
+    double value, thetaGran, hoelderGran;
+    boolean pruning;
+    List<ConvolutionState> results;
     
     /**
      *
@@ -52,14 +62,55 @@ public class EndToEndConvolutionCommand implements Command {
         this.flowOfInterest = nw.getFlow(flowID);
     }
     
+    /**
+     *
+     * @param vertex1ID
+     * @param vertex2ID
+     * @param flowID
+     * @param networkID
+     * @param snc
+     * @param thetaGran The granularity of the theta search
+     * @param hoelderGran The granularity of the Hoelder search
+     * @param optAlgorithm The optimization algorithm for every plan
+     * @param boundType The type of the bound
+     * @param value The bound value or violation probability
+     * @param pruning Whether the search prunes states by their estimate
+     */
+    public EndToEndConvolutionCommand(int vertex1ID, int vertex2ID, int flowID, int networkID, SNC snc, double thetaGran, double hoelderGran,
+            OptimizationType optAlgorithm, BoundType boundType, double value, boolean pruning) {
+        this(vertex1ID, vertex2ID, flowID, networkID, snc);
+        this.thetaGran = thetaGran;
+        this.hoelderGran = hoelderGran;
+        this.optAlgorithm = optAlgorithm;
+        this.boundType = boundType;
+        this.value = value;
+        this.pruning = pruning;
+    }
+    
     @Override
     public void execute() {
         SimpleEndToEndConvolutor convolutor = new SimpleEndToEndConvolutor(flowOfInterest);
-        List<ConvolutionState> results = convolutor.computeAllConvolutions("", vertex1ID, vertex2ID, nw);
-        for (ConvolutionState res : results) {
-            System.out.println(res.getOperations());
+        if (optAlgorithm == null) {
+            results = convolutor.computeAllConvolutions("", vertex1ID, vertex2ID, nw);
+            for (ConvolutionState res : results) {
+                System.out.println(res.getOperations());
+            }
+        } else {
+            results = convolutor.findBestConvolution(vertex1ID, vertex2ID, nw, thetaGran, hoelderGran, optAlgorithm, boundType, value, pruning);
+            for (ConvolutionState res : results) {
+                System.out.println(res.getOperations() + ": " + res.getValue());
+            }
         }
     }
+    
+    /**
+     * Returns the states computed by the last execution, in case of an
+     * optimizing search the path to the best plan
+     * @return the states, null if the command was not executed yet
+     */
+    public List<ConvolutionState> getResults() {
+        return results;
+    }
 
     @Override
     public void undo() {
@@ -142,6 +142,13 @@ public class OptimizationDialog {
                         + " " + (double) (thetaGran.getModel().getValue())
                         + " " + Double.parseDouble(valueField.getText()));
                 try {
+                if (analysisSelector.getSelectedItem() == AnalysisType.DETERMINISTIC_ANA) {
+                    // Worst-case bounds are computed in closed form, there is nothing to optimize
+                    BoundType boundType = (BoundType) boundSelector.getSelectedItem();
+                    System.out.println("The deterministic bound is: ");
+                    System.out.println(SNC.getInstance().screenNetwork(flow, vertex, SNC.getInstance().convertBoundTypes(boundType), nw));
+                    return;
+                }
                 System.out.println("The result of the optimization is: ");
                 System.out.println(SNC.getInstance().optimizeSymbolicFunction(flow, vertex,
                         (double) (thetaGran.getModel().getValue()),
@@ -0,0 +1,238 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.SymbolicFunction;
+import unikl.disco.misc.FileOperationException;
+
+/**
+ * A cache of symbolic bounds, which is addressed by the content of the
+ * analyzed network: The key consists of the {@link NetworkFingerprint}
+ * together with the flow and vertex of interest, the
+ * {@link AnalysisType} and the bound type. Hence, identical networks
+ * share their results, regardless of the tool or session they are
+ * analyzed in.
+ * The most recently used entries are kept in memory. Optionally, all
+ * entries are also written to a directory, from which they are read if
+ * they are not (or no longer) in memory.
+ * Entries are stored serialized, such that every hit returns a new,
+ * independent bound. Its Hoelder parameters can be altered by the
+ * optimization without affecting the cache or other callers.
+ *
+ * @author Sebastian Henningsen
+ */
+public class AnalysisCache {
+
+    /**
+     * The number of entries kept in memory, if not given otherwise
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+    private static final String SUFFIX = ".bound";
+    // Part of every key, to be raised whenever the canonical form of the fingerprints changes
+    private static final String FORMAT = "2";
+
+    private final Map<String, byte[]> entries;
+    private final File directory;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache, which is kept in memory only
+     * @param capacity the maximal number of entries
+     */
+    public AnalysisCache(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Creates a cache with an on-disk tier
+     * @param capacity the maximal number of entries kept in memory
+     * @param directory the directory the entries are written to, created
+     * if necessary. If null, the cache is kept in memory only.
+     */
+    public AnalysisCache(final int capacity, File directory) {
+        this.entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new FileOperationException("Could not create the cache directory " + directory + ".");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Builds the key of an analysis. Entries written with an earlier form of
+     * the fingerprints are never looked up again.
+     * @param fingerprint the fingerprint of the analyzed network
+     * @param flowID the flow of interest
+     * @param vertexID the vertex of interest
+     * @param anaType the type of the analysis
+     * @param boundtype the type of the bound
+     * @return the key
+     */
+    public static String key(NetworkFingerprint fingerprint, int flowID, int vertexID,
+            AnalysisType anaType, AbstractAnalysis.Boundtype boundtype) {
+        return fingerprint.getDigest() + "-f" + flowID + "-v" + vertexID + "-" + anaType.name() + "-" + boundtype.name() + "-" + FORMAT;
+    }
+
+    /**
+     * Looks up a bound
+     * @param key the key of the analysis
+     * @param nw the network, from which the Hoelder parameters of later
+     * operations on the bound are drawn
+     * @return a copy of the cached bound, or null if there is none
+     */
+    public Arrival get(String key, Network nw) {
+        byte[] entry = lookup(key);
+        Arrival bound = (entry != null) ? deserialize(entry, nw) : null;
+        synchronized (this) {
+            if (bound != null) {
+                hits++;
+            } else {
+                entries.remove(key);
+                misses++;
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Stores a bound. Later changes of the bound do not affect the cache.
+     * @param key the key of the analysis
+     * @param bound the bound
+     */
+    public void put(String key, Arrival bound) {
+        byte[] entry = serialize(bound);
+        synchronized (this) {
+            entries.put(key, entry);
+            if (directory != null) {
+                write(key, entry);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from memory. The on-disk tier is kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     *
+     * @return the number of lookups answered by the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     *
+     * @return the number of lookups, which had to be analyzed
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     *
+     * @return the directory of the on-disk tier or null
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    private synchronized byte[] lookup(String key) {
+        byte[] entry = entries.get(key);
+        if (entry == null && directory != null) {
+            entry = read(key);
+            if (entry != null) {
+                entries.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    private byte[] read(String key) {
+        File file = new File(directory, key + SUFFIX);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            // Unreadable entries are treated as missing
+            return null;
+        }
+    }
+
+    private void write(String key, byte[] entry) {
+        // Written to a temporary file first, such that other sessions never see partial entries
+        try {
+            File temporary = File.createTempFile(key, ".tmp", directory);
+            Files.write(temporary.toPath(), entry);
+            Files.move(temporary.toPath(), new File(directory, key + SUFFIX).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new FileOperationException(e);
+        }
+    }
+
+    // The network of the bound is not stored, it is set anew on every lookup
+    private static byte[] serialize(Arrival bound) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(bound.getSigma());
+            out.writeObject(bound.getRho());
+            out.writeObject(bound.getArrivaldependencies());
+            out.writeObject(bound.getServicedependencies());
+        } catch (IOException e) {
+            throw new FileOperationException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Arrival deserialize(byte[] entry, Network nw) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(entry))) {
+            Arrival bound = new Arrival((SymbolicFunction) in.readObject(), (SymbolicFunction) in.readObject(), nw);
+            bound.addArrivalDependency((Set<Integer>) in.readObject());
+            bound.addServiceDependency((Set<Integer>) in.readObject());
+            return bound;
+        } catch (IOException | ClassNotFoundException e) {
+            // Entries of an incompatible version of this program
+            return null;
+        }
+    }
+}
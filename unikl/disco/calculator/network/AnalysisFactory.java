@@ -44,6 +44,12 @@ public class AnalysisFactory {
                 return new SimpleAnalysis(nw, vertices, flows, flow_of_interest, vertex_of_interest, boundtype);
             case LADDER_ANA:
             	return new LadderAnalysis(nw, vertices, flows, flow_of_interest, vertex_of_interest, boundtype);
+            case PARALLEL_ANA:
+                return new ParallelAnalysis(nw, vertices, flows, flow_of_interest, vertex_of_interest, boundtype);
+            case END_TO_END_ANA:
+                return new EndToEndAnalysis(nw, vertices, flows, flow_of_interest, vertex_of_interest, boundtype);
+            case DETERMINISTIC_ANA:
+                return new DeterministicAnalysis(nw, vertices, flows, flow_of_interest, vertex_of_interest, boundtype);
             default:
                 throw new AnalysisException("Analysis Type: " + type.toString() + " not known.");
         }
@@ -0,0 +1,286 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.BadInitializationException;
+import unikl.disco.calculator.symbolic_math.ParameterMismatchException;
+import unikl.disco.calculator.symbolic_math.ParameterSlot;
+import unikl.disco.calculator.symbolic_math.Service;
+import unikl.disco.calculator.symbolic_math.SymbolicFunction;
+import unikl.disco.misc.AnalysisException;
+import unikl.disco.misc.NetworkActionException;
+
+/**
+ * An analysis, which is carried out once and can be replayed for other
+ * arrivals and services afterwards. The serve order, the dependency
+ * checks and the structure of the resulting bound depend only on the
+ * routes, priorities and dependencies in the network, not on the rates
+ * and bursts of the arrivals and services. Hence, the plan replaces the
+ * sigma- and rho-functions of the arrivals, with which the flows enter
+ * the network, and of the services by {@link ParameterSlot}s before the
+ * analysis. The resulting bound is built from these slots, binding other
+ * arrivals or services to them changes the bound without analyzing the
+ * network again. This is meant for parameter sweeps, e.g. over the rates
+ * of the arrivals.
+ * Only the component of the network containing the vertex of interest is
+ * taken into account, the given network is not altered. The bound carries
+ * Hoelder parameters, which are altered by the optimization. Hence, a
+ * plan must not be optimized by several threads at the same time, see
+ * {@link unikl.disco.calculator.SNC#optimizePlan}.
+ * @author Sebastian Henningsen
+ * @see ParameterSlot
+ */
+public class AnalysisPlan {
+
+    private final Network template;
+    private final int flowOfInterest;
+    private final int vertexOfInterest;
+    private final AnalysisType analysisType;
+    private final AbstractAnalysis.Boundtype boundtype;
+    // The slots of the arrivals indexed by flow-id and of the services indexed by vertex-id, {sigma, rho} each
+    private final Map<Integer, ParameterSlot[]> arrivalSlots = new TreeMap<>();
+    private final Map<Integer, ParameterSlot[]> serviceSlots = new TreeMap<>();
+    // The functions the slots were created with
+    private final Map<ParameterSlot, SymbolicFunction> initialFunctions = new LinkedHashMap<>();
+    private final Arrival bound;
+
+    /**
+     * Analyzes the network and records the resulting bound.
+     * @param nw the network to be analyzed, it is not altered
+     * @param flowOfInterest the id of the flow of interest
+     * @param vertexOfInterest the id of the vertex of interest
+     * @param analysisType the analysis to be carried out, the
+     * {@link AnalysisType#DETERMINISTIC_ANA} has no symbolic result and
+     * cannot be planned
+     * @param boundtype the type of bound
+     * @throws ArrivalNotAvailableException
+     * @throws DeadlockException
+     * @throws BadInitializationException
+     */
+    public AnalysisPlan(Network nw, int flowOfInterest, int vertexOfInterest, AnalysisType analysisType, AbstractAnalysis.Boundtype boundtype)
+            throws ArrivalNotAvailableException, DeadlockException, BadInitializationException {
+        if (analysisType == AnalysisType.DETERMINISTIC_ANA) {
+            throw new AnalysisException("The " + analysisType + " computes numbers, there is no symbolic bound to be replayed.");
+        }
+        this.flowOfInterest = flowOfInterest;
+        this.vertexOfInterest = vertexOfInterest;
+        this.analysisType = analysisType;
+        this.boundtype = boundtype;
+
+        template = nw.detachedCopy(nw.getComponentOf(vertexOfInterest));
+        for (Vertex vertex : template.getVertices().values()) {
+            Service service = vertex.getService();
+            ParameterSlot[] slots = createSlots(service.getSigma(), service.getRho());
+            Service slotted = new Service(slots[0], slots[1], template);
+            slotted.addArrivalDependency(service.getArrivaldependencies());
+            slotted.addServiceDependency(service.getServicedependencies());
+            vertex.setMGFService(slotted);
+            serviceSlots.put(vertex.getID(), slots);
+        }
+        for (Flow flow : template.getFlows().values()) {
+            if (flow.getVerticeIDs().isEmpty()) {
+                continue;
+            }
+            // The flow enters the remaining network with its last established arrival
+            int index = flow.getNumberOfEstablishedArrivals() - 1;
+            Arrival arrival = flow.getArrivals().get(index);
+            ParameterSlot[] slots = createSlots(arrival.getSigma(), arrival.getRho());
+            Arrival slotted = new Arrival(slots[0], slots[1], template);
+            slotted.addArrivalDependency(arrival.getArrivaldependencies());
+            slotted.addServiceDependency(arrival.getServicedependencies());
+            flow.getArrivals().set(index, slotted);
+            Vertex vertex = template.getVertex(flow.getVerticeIDs().get(index));
+            if (vertex.getArrivalOfFlow(flow.getID()) != null) {
+                vertex.learnArrival(flow.getID(), slotted);
+            }
+            arrivalSlots.put(flow.getID(), slots);
+        }
+
+        // The template shares its slotted arrivals and services with the copy, which is consumed by the analysis
+        Network nwCopy = template.detachedCopy();
+        Analyzer analyzer = AnalysisFactory.getAnalyzer(analysisType, nwCopy, nwCopy.getVertices(), nwCopy.getFlows(), flowOfInterest, vertexOfInterest, boundtype);
+        bound = analyzer.analyze();
+    }
+
+    private ParameterSlot[] createSlots(SymbolicFunction sigma, SymbolicFunction rho) {
+        ParameterSlot[] slots = {new ParameterSlot(sigma), new ParameterSlot(rho)};
+        initialFunctions.put(slots[0], sigma);
+        initialFunctions.put(slots[1], rho);
+        return slots;
+    }
+
+    /**
+     * Replaces the arrival, with which a flow enters the network, by
+     * another one. The bound of the plan takes the new arrival into
+     * account from now on.
+     * @param flowID the id of the flow
+     * @param arrival the new arrival, its functions must have the same
+     * Hoelder parameters as the ones they replace
+     * @throws ParameterMismatchException
+     */
+    public synchronized void bindArrival(int flowID, Arrival arrival) throws ParameterMismatchException {
+        ParameterSlot[] slots = arrivalSlots.get(flowID);
+        if (slots == null) {
+            throw new NetworkActionException("The flow with ID " + flowID + " is not part of this plan.");
+        }
+        bind(slots, arrival.getSigma(), arrival.getRho());
+    }
+
+    /**
+     * Replaces the service of a vertex by another one. The bound of the
+     * plan takes the new service into account from now on.
+     * @param vertexID the id of the vertex
+     * @param service the new service, its functions must have the same
+     * Hoelder parameters as the ones they replace
+     * @throws ParameterMismatchException
+     */
+    public synchronized void bindService(int vertexID, Service service) throws ParameterMismatchException {
+        ParameterSlot[] slots = serviceSlots.get(vertexID);
+        if (slots == null) {
+            throw new NetworkActionException("The vertex with ID " + vertexID + " is not part of this plan.");
+        }
+        bind(slots, service.getSigma(), service.getRho());
+    }
+
+    // Binds both functions or none of them
+    private void bind(ParameterSlot[] slots, SymbolicFunction sigma, SymbolicFunction rho) throws ParameterMismatchException {
+        SymbolicFunction previous = slots[0].getBound();
+        slots[0].bind(sigma);
+        try {
+            slots[1].bind(rho);
+        } catch (ParameterMismatchException e) {
+            slots[0].bind(previous);
+            throw e;
+        }
+    }
+
+    /**
+     * Binds the arrivals and services again, with which the plan was
+     * created.
+     */
+    public synchronized void reset() {
+        for (Map.Entry<ParameterSlot, SymbolicFunction> entry : initialFunctions.entrySet()) {
+            try {
+                entry.getKey().bind(entry.getValue());
+            } catch (ParameterMismatchException e) {
+                // Only functions with the parameters of the initial ones can have been bound
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the arrival currently bound for a flow.
+     * @param flowID the id of the flow
+     * @return the arrival built from the bound functions
+     */
+    public synchronized Arrival getBoundArrival(int flowID) {
+        ParameterSlot[] slots = arrivalSlots.get(flowID);
+        if (slots == null) {
+            throw new NetworkActionException("The flow with ID " + flowID + " is not part of this plan.");
+        }
+        return new Arrival(slots[0].getBound(), slots[1].getBound(), template);
+    }
+
+    /**
+     * Returns the service currently bound for a vertex.
+     * @param vertexID the id of the vertex
+     * @return the service built from the bound functions
+     */
+    public synchronized Service getBoundService(int vertexID) {
+        ParameterSlot[] slots = serviceSlots.get(vertexID);
+        if (slots == null) {
+            throw new NetworkActionException("The vertex with ID " + vertexID + " is not part of this plan.");
+        }
+        return new Service(slots[0].getBound(), slots[1].getBound(), template);
+    }
+
+    /**
+     * Returns the bound, which results from the analysis. It reflects the
+     * arrivals and services bound at the time it is evaluated.
+     * @return the bound in {@link Arrival}-representation
+     */
+    public Arrival getBound() {
+        return bound;
+    }
+
+    /**
+     * Returns the analyzed component of the network, its arrivals and
+     * services reflect the currently bound ones. The network must not be
+     * altered.
+     * @return
+     */
+    public Network getNetwork() {
+        return template;
+    }
+
+    /**
+     *
+     * @return the ids of the flows, whose arrivals can be bound
+     */
+    public Set<Integer> getFlowIDs() {
+        return Collections.unmodifiableSet(arrivalSlots.keySet());
+    }
+
+    /**
+     *
+     * @return the ids of the vertices, whose services can be bound
+     */
+    public Set<Integer> getVertexIDs() {
+        return Collections.unmodifiableSet(serviceSlots.keySet());
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int getFlowOfInterest() {
+        return flowOfInterest;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int getVertexOfInterest() {
+        return vertexOfInterest;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public AnalysisType getAnalysisType() {
+        return analysisType;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public AbstractAnalysis.Boundtype getBoundtype() {
+        return boundtype;
+    }
+}
@@ -39,5 +39,39 @@ public enum AnalysisType {
 	public String toString() {
     		return "Ladder Analysis";
     	}
+    },
+
+    /**
+     * A simple analysis, which serves independent vertices in parallel
+     */
+    PARALLEL_ANA {
+        @Override
+	public String toString() {
+            return "Parallel Simple Analysis";
+	}
+    },
+
+    /**
+     * Concatenates the leftover services along the path of the flow of
+     * interest, instead of bounding its output at every hop. This is done
+     * on segments traversed by the very same flows only, cross-flows
+     * joining or leaving in between are served hop-by-hop.
+     */
+    END_TO_END_ANA {
+        @Override
+	public String toString() {
+            return "End-to-End Analysis";
+	}
+    },
+
+    /**
+     * Computes deterministic worst-case bounds in closed form, meant for
+     * a fast screening
+     */
+    DETERMINISTIC_ANA {
+        @Override
+	public String toString() {
+            return "Deterministic Screening";
+	}
     }
 }
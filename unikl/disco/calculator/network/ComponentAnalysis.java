@@ -0,0 +1,132 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.BadInitializationException;
+
+/**
+ * Analyzes the flow-connected components of a network independently of
+ * each other. Networks often consist of several disjoint parts, which
+ * do not influence each other, see {@link Network#getComponents()}.
+ * Each component is copied and analyzed on its own, the components are
+ * analyzed in parallel. Since every copy draws its Hoelder parameters on
+ * its own, the bounds of flows in different components might share the
+ * IDs of their Hoelder parameters and must not be combined.
+ * @author Sebastian Henningsen
+ * @see SimpleAnalysis#analyzeAllFlows(boolean)
+ */
+public class ComponentAnalysis {
+
+    private ComponentAnalysis() {
+    }
+
+    /**
+     * Calculates the bounds of all flows of the network, see
+     * {@link SimpleAnalysis#analyzeAllFlows(boolean)}. The network itself
+     * is not altered.
+     * @param nw the network to be analyzed
+     * @param boundtype the type of bound
+     * @param lastHopsOnly if true, the bound of each flow is only
+     * calculated at the last vertex of its route
+     * @return the bounds in {@link Arrival}-representation, indexed
+     * by flow-id and vertex-id
+     * @throws ArrivalNotAvailableException
+     * @throws DeadlockException
+     * @throws BadInitializationException
+     */
+    public static Map<Integer, Map<Integer, Arrival>> analyzeAllFlows(Network nw, AbstractAnalysis.Boundtype boundtype, boolean lastHopsOnly)
+            throws ArrivalNotAvailableException, DeadlockException, BadInitializationException {
+        return analyzeAllFlows(nw, boundtype, lastHopsOnly, false);
+    }
+
+    /**
+     * Calculates the bounds of all flows of the network, see
+     * {@link SimpleAnalysis#analyzeAllFlows(boolean)}. Optionally, flows
+     * sharing route and priorities are aggregated before and the bounds of
+     * the aggregates are assigned to their members afterwards, see
+     * {@link FlowAggregation}. Delay bounds are never computed on
+     * aggregates. The network itself is not altered.
+     * @param nw the network to be analyzed
+     * @param boundtype the type of bound
+     * @param lastHopsOnly if true, the bound of each flow is only
+     * calculated at the last vertex of its route
+     * @param aggregate if true, flows sharing route and priorities are
+     * aggregated, unless delay bounds are calculated
+     * @return the bounds in {@link Arrival}-representation, indexed
+     * by flow-id and vertex-id
+     * @throws ArrivalNotAvailableException
+     * @throws DeadlockException
+     * @throws BadInitializationException
+     */
+    public static Map<Integer, Map<Integer, Arrival>> analyzeAllFlows(Network nw, final AbstractAnalysis.Boundtype boundtype, final boolean lastHopsOnly,
+            final boolean aggregate) throws ArrivalNotAvailableException, DeadlockException, BadInitializationException {
+        List<Set<Integer>> components = nw.getComponents();
+        if (components.size() <= 1) {
+            return analyzeAllFlows(nw.detachedCopy(), boundtype, lastHopsOnly, aggregate, null);
+        }
+
+        final Map<Integer, Map<Integer, Arrival>> bounds = new ConcurrentHashMap<>();
+        List<Callable<Void>> tasks = new ArrayList<>(components.size());
+        for (Set<Integer> component : components) {
+            final Network copy = nw.detachedCopy(component);
+            if (copy.getFlows().isEmpty()) {
+                continue;
+            }
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    analyzeAllFlows(copy, boundtype, lastHopsOnly, aggregate, bounds);
+                    return null;
+                }
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            ParallelAnalysis.invokeAll(pool, tasks);
+        } finally {
+            pool.shutdown();
+        }
+        return new HashMap<>(bounds);
+    }
+
+    private static Map<Integer, Map<Integer, Arrival>> analyzeAllFlows(Network copy, AbstractAnalysis.Boundtype boundtype, boolean lastHopsOnly,
+            boolean aggregate, Map<Integer, Map<Integer, Arrival>> bounds) throws ArrivalNotAvailableException, DeadlockException, BadInitializationException {
+        // The delay bound of an aggregate doesn't bound the delays of its members
+        FlowAggregation aggregation = aggregate && boundtype != AbstractAnalysis.Boundtype.DELAY ? FlowAggregation.aggregate(copy) : null;
+        // There is no flow or vertex of interest
+        SimpleAnalysis analysis = new SimpleAnalysis(copy, copy.getVertices(), copy.getFlows(), 0, 0, boundtype);
+        Map<Integer, Map<Integer, Arrival>> result = analysis.analyzeAllFlows(lastHopsOnly);
+        if (aggregation != null) {
+            result = aggregation.disaggregate(result);
+        }
+        if (bounds != null) {
+            bounds.putAll(result);
+        }
+        return result;
+    }
+}
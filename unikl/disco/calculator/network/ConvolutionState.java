@@ -28,6 +28,7 @@ public class ConvolutionState {
     
     private final String operations;
     private final Arrival arrival;
+    private final double value;
     
     /**
      *
@@ -35,8 +36,19 @@ public class ConvolutionState {
      * @param arrival
      */
     public ConvolutionState(String operations, Arrival arrival) {
+        this(operations, arrival, Double.NaN);
+    }
+    
+    /**
+     *
+     * @param operations The operations performed so far
+     * @param arrival The resulting bound, null if the state is not final
+     * @param value The optimized bound, which can be reached from this state
+     */
+    public ConvolutionState(String operations, Arrival arrival, double value) {
         this.operations = operations;
         this.arrival = arrival;
+        this.value = value;
     }
     
     /**
@@ -54,4 +66,12 @@ public class ConvolutionState {
     public Arrival getArrival() {
         return arrival;
     }
+    
+    /**
+     * Returns the optimized bound or NaN, if the state was not optimized
+     * @return
+     */
+    public double getValue() {
+        return value;
+    }
 }
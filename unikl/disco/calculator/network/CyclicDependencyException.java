@@ -0,0 +1,68 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This exception is thrown if the flows of a network induce a cycle
+ * between its vertices, i.e. the network is not feed-forward. It
+ * carries the offending cycle and the flows inducing it.
+ * @author Sebastian Henningsen
+ * @see VertexDependencyGraph#verifyFeedForward()
+ */
+public class CyclicDependencyException extends DeadlockException {
+
+    private static final long serialVersionUID = -2861317394417734302L;
+    private final List<Integer> cycle;
+    private final Set<Integer> flowIDs;
+
+    CyclicDependencyException(List<Integer> cycle, Set<Integer> flowIDs) {
+        super("The flows " + flowIDs + " induce the cycle " + format(cycle) + " between the vertices. Non-Feed-Forward-Network?");
+        this.cycle = Collections.unmodifiableList(cycle);
+        this.flowIDs = Collections.unmodifiableSet(flowIDs);
+    }
+
+    private static String format(List<Integer> cycle) {
+        StringBuilder builder = new StringBuilder();
+        for (Integer vertexID : cycle) {
+            builder.append(vertexID).append(" -> ");
+        }
+        return builder.append(cycle.get(0)).toString();
+    }
+
+    /**
+     *
+     * @return the IDs of the vertices along the cycle, starting with the
+     * lowest one. The first vertex is not repeated at the end.
+     */
+    public List<Integer> getCycle() {
+        return cycle;
+    }
+
+    /**
+     *
+     * @return the IDs of the flows traversing an edge of the cycle
+     */
+    public Set<Integer> getFlowIDs() {
+        return flowIDs;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.Service;
+import unikl.disco.calculator.symbolic_math.SymbolicFunction;
+import unikl.disco.calculator.symbolic_math.functions.ConstantFunction;
+import unikl.disco.calculator.symbolic_math.functions.StationaryTBSigma;
+import unikl.disco.misc.AnalysisException;
+
+/**
+ * A deterministic screening of the network, which computes worst-case
+ * bounds in closed form instead of stochastic ones. It is meant as a
+ * fast sanity check before the stochastic bounds are optimized.
+ * Every arrival is described by a token bucket (burst, rate), where the
+ * burst is the bucket of a {@link StationaryTBSigma} or the value of a
+ * {@link ConstantFunction} and the rate is the value of a constant rho.
+ * Every service is described by a rate-latency curve, given by its
+ * constant rho and sigma. Arrivals or services with other descriptions,
+ * e.g. exponentially bounded bursts, have no worst-case envelope and
+ * cause an {@link AnalysisException}.
+ * The vertices are served hop-by-hop as in the {@link SimpleAnalysis}:
+ * The flows are served in descending priorities and the leftover service
+ * of each flow is the one of blind multiplexing. An overloaded vertex
+ * yields an infinite bound.
+ * The bound is returned in the {@link Arrival}-representation as well:
+ * for delay and backlog bounds its sigma is the bound and its rho is
+ * zero, for output bounds it is the token bucket of the output.
+ * @author Sebastian Henningsen
+ */
+public class DeterministicAnalysis extends AbstractAnalysis {
+
+    // The leftover service for the flow of interest at the vertex of interest, set by serveUntilInterest()
+    private RateLatency lastService;
+
+    /**
+     * Constructs the analysis, see {@link SimpleAnalysis}. The network is
+     * not altered by the analysis.
+     * @param nw
+     * @param vertices
+     * @param flows
+     * @param flow_of_interest
+     * @param vertex_of_interest
+     * @param boundtype
+     */
+    public DeterministicAnalysis(Network nw, Map<Integer, Vertex> vertices, Map<Integer, Flow> flows, int flow_of_interest, int vertex_of_interest, Boundtype boundtype) {
+        super(nw, vertices, flows, flow_of_interest, vertex_of_interest, boundtype);
+    }
+
+    /**
+     * Computes the worst-case bound, see {@link #computeBound()}.
+     * @return The bound in the {@link Arrival}-representation.
+     * @throws ArrivalNotAvailableException
+     * @throws DeadlockException
+     */
+    @Override
+    public Arrival analyze() throws ArrivalNotAvailableException, DeadlockException {
+        TokenBucket arrival = serveUntilInterest();
+        RateLatency service = lastService;
+        if (getBoundtype() == Boundtype.OUTPUT) {
+            TokenBucket output = arrival.output(service);
+            return new Arrival(new ConstantFunction(output.burst), new ConstantFunction(output.rate), nw);
+        }
+        return new Arrival(new ConstantFunction(bound(arrival, service)), new ConstantFunction(0), nw);
+    }
+
+    /**
+     * Computes the worst-case delay or backlog of the flow of interest at
+     * the vertex of interest. For output bounds the burst of the output is
+     * returned.
+     * @return the bound, which is infinite, if a vertex is overloaded
+     * @throws ArrivalNotAvailableException
+     * @throws DeadlockException
+     */
+    public double computeBound() throws ArrivalNotAvailableException, DeadlockException {
+        TokenBucket arrival = serveUntilInterest();
+        if (getBoundtype() == Boundtype.OUTPUT) {
+            return arrival.output(lastService).burst;
+        }
+        return bound(arrival, lastService);
+    }
+
+    private double bound(TokenBucket arrival, RateLatency service) {
+        if (arrival.rate > service.rate) {
+            return Double.POSITIVE_INFINITY;
+        }
+        switch (getBoundtype()) {
+            case DELAY:
+                return service.latency + arrival.burst / service.rate;
+            case BACKLOG:
+                return arrival.burst + arrival.rate * service.latency;
+            default:
+                throw new AnalysisException("Bound type " + getBoundtype() + " not known.");
+        }
+    }
+
+    /**
+     * Serves the vertices the vertex of interest depends on, until the
+     * flow of interest is the next flow to be served there.
+     * @return the arrival of the flow of interest at the vertex of interest
+     */
+    private TokenBucket serveUntilInterest() throws ArrivalNotAvailableException, DeadlockException {
+        VertexDependencyGraph graph = new VertexDependencyGraph(vertices, flows);
+        Set<Integer> relevant = graph.getAncestors(vertex_of_interest);
+        // The arrivals established by serving the upstream vertices
+        Map<Integer, Map<Integer, TokenBucket>> outputs = new HashMap<>();
+
+        for (List<Integer> wavefront : graph.getWavefronts()) {
+            for (Integer vertexID : wavefront) {
+                if (!relevant.contains(vertexID)) {
+                    continue;
+                }
+                Vertex vertex = vertices.get(vertexID);
+                RateLatency service = RateLatency.of(vertex.getService(), vertex);
+                for (Integer flowID : servingOrder(vertex)) {
+                    TokenBucket arrival = arrivalAt(vertex, flowID, outputs);
+                    if (vertexID == vertex_of_interest && flowID == flow_of_interest) {
+                        lastService = service;
+                        return arrival;
+                    }
+                    List<Integer> route = flows.get(flowID).getVerticeIDs();
+                    int index = route.indexOf(vertexID);
+                    if (index + 1 < route.size()) {
+                        Map<Integer, TokenBucket> next = outputs.get(route.get(index + 1));
+                        if (next == null) {
+                            next = new HashMap<>();
+                            outputs.put(route.get(index + 1), next);
+                        }
+                        next.put(flowID, arrival.output(service));
+                    }
+                    service = service.leftover(arrival);
+                }
+            }
+        }
+        throw new DeadlockException("Flow of Interest or Arrival of Interest can't be calculated. Non-Feed-Forward-Network?");
+    }
+
+    private TokenBucket arrivalAt(Vertex vertex, int flowID, Map<Integer, Map<Integer, TokenBucket>> outputs) throws ArrivalNotAvailableException {
+        Map<Integer, TokenBucket> established = outputs.get(vertex.getID());
+        if (established != null && established.containsKey(flowID)) {
+            return established.get(flowID);
+        }
+        Arrival arrival = vertex.getArrivalOfFlow(flowID);
+        if (arrival == null) {
+            throw new ArrivalNotAvailableException("The arrival of flow " + flowID + " at vertex " + vertex.getID() + " can't be established.", vertex);
+        }
+        return TokenBucket.of(arrival, flowID, vertex);
+    }
+
+    // Flows are served in descending priorities like in Vertex.serve()
+    private static List<Integer> servingOrder(Vertex vertex) {
+        final Map<Integer, Integer> priorities = vertex.getAllFlowPriorities();
+        List<Integer> order = new ArrayList<>(priorities.keySet());
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer flow1, Integer flow2) {
+                int byPriority = Integer.compare(priorities.get(flow2), priorities.get(flow1));
+                return byPriority != 0 ? byPriority : Integer.compare(flow1, flow2);
+            }
+        });
+        return order;
+    }
+
+    private static double constant(SymbolicFunction function, boolean bucketAllowed, String description) {
+        if (function instanceof ConstantFunction) {
+            return ((ConstantFunction) function).getRate();
+        } else if (bucketAllowed && function instanceof StationaryTBSigma) {
+            return ((StationaryTBSigma) function).getBucket();
+        }
+        throw new AnalysisException(description + " has no deterministic description: " + function);
+    }
+
+    /**
+     * An arrival curve b + r*t
+     */
+    private static class TokenBucket {
+
+        final double burst;
+        final double rate;
+
+        TokenBucket(double burst, double rate) {
+            this.burst = burst;
+            this.rate = rate;
+        }
+
+        static TokenBucket of(Arrival arrival, int flowID, Vertex vertex) {
+            String description = "The arrival of flow " + flowID + " at vertex " + vertex.getID();
+            return new TokenBucket(constant(arrival.getSigma(), true, description), constant(arrival.getRho(), false, description));
+        }
+
+        /**
+         * The output of a rate-latency server, which is infinite, if the
+         * server is overloaded
+         */
+        TokenBucket output(RateLatency service) {
+            if (rate > service.rate) {
+                return new TokenBucket(Double.POSITIVE_INFINITY, rate);
+            }
+            return new TokenBucket(burst + rate * service.latency, rate);
+        }
+    }
+
+    /**
+     * A service curve R*(t-T) for t larger than T
+     */
+    private static class RateLatency {
+
+        final double rate;
+        final double latency;
+
+        RateLatency(double rate, double latency) {
+            this.rate = rate;
+            this.latency = latency;
+        }
+
+        static RateLatency of(Service service, Vertex vertex) {
+            String description = "The service of vertex " + vertex.getID();
+            // The rho of a service is the negative rate, its sigma the burst of service lost
+            double rate = -constant(service.getRho(), false, description);
+            double sigma = constant(service.getSigma(), false, description);
+            return new RateLatency(rate, rate > 0 ? Math.max(sigma, 0) / rate : Double.POSITIVE_INFINITY);
+        }
+
+        /**
+         * The leftover service under blind multiplexing
+         */
+        RateLatency leftover(TokenBucket arrival) {
+            if (arrival.rate >= rate) {
+                return new RateLatency(0, Double.POSITIVE_INFINITY);
+            }
+            return new RateLatency(rate - arrival.rate, (arrival.burst + rate * latency) / (rate - arrival.rate));
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import unikl.disco.calculator.SNC;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.BadInitializationException;
+import unikl.disco.calculator.symbolic_math.Service;
+
+/**
+ * An end-to-end analysis in the spirit of "pay multiplexing only once".
+ * The path of the flow of interest (FoI) is split into segments of
+ * consecutive vertices, which are traversed by the very same flows, all
+ * of them entering at the first and leaving after the last vertex of the
+ * segment. The services of such a segment are concatenated first and the
+ * cross-flows are subtracted from the concatenation only once, instead
+ * of bounding their outputs and leftover services at every hop. Since no
+ * intermediate outputs are calculated, the stochastic dependencies
+ * between the hops of a segment do not arise and the resulting bounds
+ * have considerably fewer Hoelder parameters to optimize.
+ * A segment is only formed, if the FoI is the last flow served at each
+ * of its vertices and the outputs of the cross-flows are not needed by
+ * any vertex the vertex of interest depends on. All other vertices are
+ * served hop-by-hop as in the {@link SimpleAnalysis}, in the order of
+ * the wavefronts of the {@link VertexDependencyGraph}.
+ * Segments do not nest: Cross-flows, which join or leave the path of
+ * the FoI in between, end the segment, such that these parts of the
+ * path are analyzed hop-by-hop. Hence, the analysis only differs from
+ * the {@link SimpleAnalysis} on stretches shared by the same flows.
+ * Note that the concatenation of services with equal rates is
+ * degenerate, hence the bounds are not necessarily tighter than the ones
+ * of the {@link SimpleAnalysis}.
+ * @author Sebastian Henningsen
+ * @see Service#concatenate(Service, Service)
+ */
+public class EndToEndAnalysis extends SimpleAnalysis {
+
+    /**
+     * Constructs the analysis, see {@link SimpleAnalysis}.
+     * @param nw
+     * @param vertices
+     * @param flows
+     * @param flow_of_interest
+     * @param vertex_of_interest
+     * @param boundtype
+     */
+    public EndToEndAnalysis(Network nw, Map<Integer, Vertex> vertices, Map<Integer, Flow> flows, int flow_of_interest, int vertex_of_interest, Boundtype boundtype) {
+        super(nw, vertices, flows, flow_of_interest, vertex_of_interest, boundtype);
+    }
+
+    /**
+     * Analyzes the network by serving the segments of the FoI as a whole
+     * and all other vertices hop-by-hop.
+     * @return The bound in the {@link Arrival}-representation.
+     * @throws ArrivalNotAvailableException
+     * @throws DeadlockException
+     * @throws BadInitializationException
+     */
+    @Override
+    public Arrival analyze() throws ArrivalNotAvailableException, DeadlockException, BadInitializationException {
+        VertexDependencyGraph graph = new VertexDependencyGraph(vertices, flows);
+        Set<Integer> relevant = graph.getAncestors(vertex_of_interest);
+
+        for (List<Integer> wavefront : graph.getWavefronts()) {
+            for (Integer vertexID : wavefront) {
+                if (!relevant.contains(vertexID)) {
+                    continue;
+                }
+                Vertex vertex = vertices.get(vertexID);
+                if (vertex.getAllFlowPriorities().containsKey(flow_of_interest)) {
+                    List<Integer> segment = findSegment(vertexID, relevant);
+                    if (segment.size() > 1) {
+                        Arrival bound = serveSegment(segment);
+                        if (bound != null) {
+                            return bound;
+                        }
+                        continue;
+                    }
+                }
+                while (!vertex.getAllFlowPriorities().isEmpty()) {
+                    int flowID = vertex.calculatePriority();
+                    if (vertexID == vertex_of_interest && flowID == flow_of_interest) {
+                        return calculateBound(flows.get(flowID).getLastArrival(), vertex.getService());
+                    }
+                    if (!vertex.canServe()) {
+                        throw new DeadlockException("Not all arrivals are known at vertex " + vertexID + ".");
+                    }
+                    forward(vertex, flowID);
+                }
+            }
+        }
+        throw new DeadlockException("Flow of Interest or Arrival of Interest can't be calculated. Non-Feed-Forward-Network?");
+    }
+
+    /**
+     * Determines the segment of the FoI's path, which starts at the given
+     * vertex. The segment ends at the vertex of interest at the latest.
+     * @param start the first vertex of the segment
+     * @param relevant the vertices the vertex of interest depends on
+     * @return the vertex-ids of the segment, which consists of the start
+     * vertex only, if no longer segment can be formed
+     */
+    private List<Integer> findSegment(int start, Set<Integer> relevant) {
+        List<Integer> segment = new ArrayList<>();
+        segment.add(start);
+        Vertex first = vertices.get(start);
+        if (!isServedLast(first)) {
+            return segment;
+        }
+        Set<Integer> flowIDs = first.getAllFlowPriorities().keySet();
+        List<Integer> route = flows.get(flow_of_interest).getVerticeIDs();
+
+        int current = start;
+        for (int index = route.indexOf(start) + 1; index < route.size() && current != vertex_of_interest; index++) {
+            int nextID = route.get(index);
+            Vertex next = vertices.get(nextID);
+            if (!next.getAllFlowPriorities().keySet().equals(flowIDs) || !isServedLast(next)
+                    || !allHopTo(flowIDs, current, nextID)) {
+                break;
+            }
+            segment.add(nextID);
+            current = nextID;
+        }
+
+        // The outputs of the cross-flows are not calculated, hence no relevant vertex may need them
+        for (Integer flowID : flowIDs) {
+            List<Integer> crossRoute = flows.get(flowID).getVerticeIDs();
+            int index = crossRoute.indexOf(current);
+            if (flowID != flow_of_interest && index + 1 < crossRoute.size() && relevant.contains(crossRoute.get(index + 1))) {
+                return Collections.singletonList(start);
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Checks, whether the FoI is served after all other flows at the
+     * vertex, i.e. no flow needs its output at this vertex.
+     */
+    private boolean isServedLast(Vertex vertex) {
+        Map<Integer, Integer> priorities = vertex.getAllFlowPriorities();
+        int priority = priorities.get(flow_of_interest);
+        for (Map.Entry<Integer, Integer> entry : priorities.entrySet()) {
+            int flowID = entry.getKey();
+            if (entry.getValue() < priority || (entry.getValue() == priority && flowID > flow_of_interest)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks, whether all given flows travel directly from one vertex to
+     * the other.
+     */
+    private boolean allHopTo(Set<Integer> flowIDs, int from, int to) {
+        for (Integer flowID : flowIDs) {
+            List<Integer> route = flows.get(flowID).getVerticeIDs();
+            int index = route.indexOf(from);
+            if (index < 0 || index + 1 >= route.size() || route.get(index + 1) != to) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serves all flows of a segment at once. The services of the segment
+     * are concatenated and the cross-flows are subtracted from the
+     * concatenation by their arrivals at the first vertex of the segment.
+     * The resulting service is shared with other analyses by the
+     * {@link SegmentServiceCache} of the session.
+     * @param segment the vertex-ids of the segment
+     * @return the bound, if the segment ends at the vertex of interest,
+     * null otherwise
+     * @throws ArrivalNotAvailableException
+     * @throws BadInitializationException
+     */
+    private Arrival serveSegment(List<Integer> segment) throws ArrivalNotAvailableException, BadInitializationException {
+        List<Vertex> segmentVertices = new ArrayList<>(segment.size());
+        for (Integer vertexID : segment) {
+            segmentVertices.add(vertices.get(vertexID));
+        }
+        Vertex first = segmentVertices.get(0);
+        // The cross-flows are subtracted in the order of their ids to keep the bounds reproducible
+        SortedMap<Integer, Arrival> crossArrivals = new TreeMap<>();
+        for (Integer flowID : first.getAllFlowPriorities().keySet()) {
+            if (flowID != flow_of_interest) {
+                crossArrivals.put(flowID, arrivalAt(first, flowID));
+            }
+        }
+        SegmentServiceCache cache = SNC.getInstance().getSegmentServiceCache();
+        Service service = (cache != null) ? cache.getLeftover(segmentVertices, crossArrivals, nw)
+                : SegmentServiceCache.computeLeftover(segmentVertices, crossArrivals, nw);
+        Arrival arrival = arrivalAt(first, flow_of_interest);
+        int lastID = segment.get(segment.size() - 1);
+        if (lastID == vertex_of_interest) {
+            return calculateBound(arrival, service);
+        }
+
+        List<Integer> route = flows.get(flow_of_interest).getVerticeIDs();
+        int index = route.indexOf(lastID);
+        Vertex next = (index + 1 < route.size()) ? vertices.get(route.get(index + 1)) : null;
+        Arrival output = new Arrival(nw).output(arrival, service);
+
+        for (Integer vertexID : segment) {
+            Vertex vertex = vertices.get(vertexID);
+            for (Integer flowID : new ArrayList<>(vertex.getAllFlowPriorities().keySet())) {
+                vertex.removeFlow(flowID);
+                flows.get(flowID).removeVertex(vertexID);
+            }
+        }
+        Logger.getLogger(EndToEndAnalysis.class.getName()).log(Level.FINE, "Flow with id {0} served at the nodes {1}",
+                new Object[]{flow_of_interest, segment});
+        flows.get(flow_of_interest).learnArrival(output);
+        if (next != null) {
+            next.learnArrival(flow_of_interest, output);
+        }
+        return null;
+    }
+
+    private static Arrival arrivalAt(Vertex vertex, int flowID) throws ArrivalNotAvailableException {
+        Arrival arrival = vertex.getArrivalOfFlow(flowID);
+        if (arrival == null) {
+            throw new ArrivalNotAvailableException("The arrival of flow " + flowID + " at vertex " + vertex.getID() + " can't be established.", vertex);
+        }
+        return arrival;
+    }
+}
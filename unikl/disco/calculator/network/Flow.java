@@ -18,9 +18,12 @@
  */
 package unikl.disco.calculator.network;
 
+import cern.colt.list.IntArrayList;
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
 
 import unikl.disco.calculator.symbolic_math.Arrival;
 import unikl.disco.calculator.gui.Displayable;
@@ -28,9 +31,10 @@ import unikl.disco.misc.NetworkActionException;
 
 /**
  * Describes a flow through the network and gives it an initial arrival. The
- * route through the network is given by an ArrayList of {@link Vertex}-ids. At
- * each vertice the flow has a priority given in the ArrayList
- * <code>priorities</code>. Further <code>
+ * route through the network is given by a list of {@link Vertex}-ids. At
+ * each vertice the flow has a priority given in the list
+ * <code>priorities</code>. Both are stored as primitive int lists and handed
+ * out as read-only views. Further <code>
  * flow</code> has a third ArrayList, which consists of {@link
  * Arrival}s. Initially at most the first arrival in that array is given,
  * further arrivals are initialized by calculating output- bounds in the {
@@ -46,9 +50,9 @@ public class Flow implements Serializable, Displayable {
 
     //Members
     private static final long serialVersionUID = 7989846738211040015L;
-    private List<Integer> vertices;
+    private IntArrayList vertices;
     private List<Arrival> arrivals;
-    private List<Integer> priorities;
+    private IntArrayList priorities;
 
     private int ID;
     private String alias;
@@ -60,7 +64,8 @@ public class Flow implements Serializable, Displayable {
     //Constructors
     /**
      * Constructs a flow, with the complete route through the network and
-     * priorities at the vertices given.
+     * priorities at the vertices given. Route and priorities are copied,
+     * later changes of the given lists do not affect the flow.
      *
      * @param flow_ID
      * @param vertices the vertex-ids, through which the flow traverses the
@@ -80,9 +85,9 @@ public class Flow implements Serializable, Displayable {
      */
     public Flow(int flow_ID, List<Integer> vertices, List<Arrival> arrivals,
             List<Integer> priorities, String alias, Network nw) {
-        this.vertices = vertices;
+        this.vertices = toIntList(vertices);
         this.arrivals = arrivals;
-        this.priorities = priorities;
+        this.priorities = toIntList(priorities);
         
         // Sanity checks. Route should be the same length as priorities.
         // arrival should be smaller
@@ -94,7 +99,10 @@ public class Flow implements Serializable, Displayable {
         this.ID = flow_ID;
         this.alias = alias == null ? "" : alias;
         // TODO: Why?
-        arrivals.get(0).addArrivalDependency(flow_ID);
+        // A flow, which has been served at all its vertices, has no arrivals left
+        if (!arrivals.isEmpty()) {
+            arrivals.get(0).addArrivalDependency(flow_ID);
+        }
         this.nw = nw;
     }
 
@@ -119,7 +127,7 @@ public class Flow implements Serializable, Displayable {
      *
      * @param arrival overwrites the next dummy arrival in the flow
      */
-    public void learnArrival(Arrival arrival) {
+    public synchronized void learnArrival(Arrival arrival) {
         if (established_arrivals < arrivals.size()) {
             arrivals.set(established_arrivals, arrival);
             established_arrivals++;
@@ -135,19 +143,14 @@ public class Flow implements Serializable, Displayable {
      *
      * @param vertexID
      */
-    public void removeVertex(int vertexID) {
-        while (true) {
-            if (vertices.contains(vertexID)) {
-                int index = vertices.indexOf(vertexID);
-                vertices.remove(index);
-                arrivals.remove(index);
-                priorities.remove(index);
-                if (established_arrivals - 1 == index) {
-                    established_arrivals--;
-                }
-
-            } else {
-                break;
+    public synchronized void removeVertex(int vertexID) {
+        int index;
+        while ((index = vertices.indexOf(vertexID)) >= 0) {
+            vertices.remove(index);
+            arrivals.remove(index);
+            priorities.remove(index);
+            if (established_arrivals - 1 == index) {
+                established_arrivals--;
             }
         }
 
@@ -159,7 +162,20 @@ public class Flow implements Serializable, Displayable {
      * @return A copy of this flow.
      */
     public Flow copy() {
-        Flow copy = new Flow(ID, vertices, arrivals, priorities, alias, nw);
+        return copy(nw);
+    }
+
+    /**
+     * Copies this flow into another network. The route, arrivals and
+     * priorities of the copy can be altered without affecting this flow.
+     *
+     * @param nw The network the copy belongs to
+     * @return A copy of this flow.
+     */
+    public Flow copy(Network nw) {
+        // The arrivals are set afterwards, since the constructor would alter the dependencies of the shared initial arrival
+        Flow copy = new Flow(ID, getVerticeIDs(), new ArrayList<Arrival>(), getPriorities(), alias, nw);
+        copy.arrivals = new ArrayList<>(arrivals);
         copy.setEstablishedArrivals(getNumberOfEstablishedArrivals());
         return copy;
     }
@@ -175,7 +191,11 @@ public class Flow implements Serializable, Displayable {
      * @param arrival the new initial arrival
      */
     public void setInitialArrival(Arrival arrival) {
-        arrivals.add(0, arrival);
+        if (arrivals.isEmpty()) {
+            arrivals.add(arrival);
+        } else {
+            arrivals.set(0, arrival);
+        }
         arrivals.get(0).addArrivalDependency(ID);
         established_arrivals = 1;
     }
@@ -262,18 +282,26 @@ public class Flow implements Serializable, Displayable {
 
     /**
      *
-     * @return
+     * @return a read-only view on the route
      */
     public List<Integer> getVerticeIDs() {
-        return vertices;
+        return new IntListView(vertices);
     }
 
     /**
      *
-     * @return
+     * @return a read-only view on the priorities along the route
      */
     public List<Integer> getPriorities() {
-        return priorities;
+        return new IntListView(priorities);
+    }
+
+    /**
+     *
+     * @return
+     */
+    public List<Arrival> getArrivals() {
+        return arrivals;
     }
 
     /**
@@ -308,4 +336,49 @@ public class Flow implements Serializable, Displayable {
     public String toString() {
         return (this.alias != null ? this.alias : String.valueOf(this.ID));
     }
+
+    private static IntArrayList toIntList(List<Integer> list) {
+        IntArrayList result = new IntArrayList(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            result.add(list.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Read-only view of an int list, which boxes the elements on access
+     */
+    private static class IntListView extends AbstractList<Integer> implements RandomAccess {
+
+        private final IntArrayList list;
+
+        IntListView(IntArrayList list) {
+            this.list = list;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return list.get(index);
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return o instanceof Integer ? list.indexOf((Integer) o) : -1;
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            return o instanceof Integer ? list.lastIndexOf((Integer) o) : -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+    }
 }
@@ -0,0 +1,166 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import unikl.disco.calculator.symbolic_math.Arrival;
+
+/**
+ * Aggregates flows, which share their route and their priorities at all
+ * vertices of the route. The initial arrivals of such flows are
+ * multiplexed into one aggregate flow, which carries the lowest ID of
+ * its members, the other members are removed from the network. Hence,
+ * an analysis serves each aggregate only once instead of every member
+ * separately.
+ * A backlog or output bound of the aggregate is a bound of each of its
+ * members as well, see {@link #disaggregate(Map)}. Since the members are
+ * no longer served one after another, the bounds of the members are in
+ * general not the same as the ones of an analysis without aggregation.
+ * A delay bound of the aggregate is no bound of its members: The member
+ * served last at a vertex only receives the service left over by the
+ * others, hence its delay may exceed the one of the aggregate.
+ * Only flows, which have not been served at any vertex yet, are
+ * aggregated.
+ * @author Sebastian Henningsen
+ * @see Arrival#multiplex(Arrival, Arrival)
+ */
+public class FlowAggregation {
+
+    // The members of each aggregate, including the aggregate itself
+    private final Map<Integer, List<Integer>> members;
+    private final Map<Integer, Integer> aggregates;
+
+    private FlowAggregation(Map<Integer, List<Integer>> members) {
+        this.members = members;
+        this.aggregates = new HashMap<>();
+        for (Map.Entry<Integer, List<Integer>> entry : members.entrySet()) {
+            for (Integer flowID : entry.getValue()) {
+                aggregates.put(flowID, entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Aggregates the flows of a network, which share route and
+     * priorities. The network is altered, hence this is meant to be
+     * applied to a copy, e.g. {@link Network#detachedCopy()}.
+     * @param nw the network
+     * @return the aggregation, which maps the removed flows to their
+     * aggregates
+     * @throws ArrivalNotAvailableException
+     */
+    public static FlowAggregation aggregate(Network nw) throws ArrivalNotAvailableException {
+        // Groups the flows by route and priorities, in ascending order of their IDs
+        Map<List<List<Integer>>, List<Flow>> groups = new LinkedHashMap<>();
+        for (Flow flow : new TreeMap<>(nw.getFlows()).values()) {
+            List<Integer> route = flow.getVerticeIDs();
+            if (route.isEmpty() || flow.getNumberOfEstablishedArrivals() != 1
+                    || nw.getVertex(route.get(0)).getArrivalOfFlow(flow.getID()) == null) {
+                continue;
+            }
+            List<List<Integer>> key = Arrays.asList(new ArrayList<>(route), new ArrayList<>(flow.getPriorities()));
+            List<Flow> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(key, group);
+            }
+            group.add(flow);
+        }
+
+        Map<Integer, List<Integer>> members = new HashMap<>();
+        for (List<Flow> group : groups.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            Flow first = group.get(0);
+            List<Integer> memberIDs = new ArrayList<>(group.size());
+            Arrival aggregate = first.getInitialArrival();
+            memberIDs.add(first.getID());
+            for (Flow flow : group.subList(1, group.size())) {
+                aggregate = new Arrival(nw).multiplex(aggregate, flow.getInitialArrival());
+                memberIDs.add(flow.getID());
+                nw.removeFlow(flow);
+            }
+
+            // The aggregate replaces the first member, such that the vertices need not to be altered
+            nw.setInitialArrival(first.getID(), aggregate);
+            members.put(first.getID(), memberIDs);
+        }
+        return new FlowAggregation(members);
+    }
+
+    /**
+     * Assigns the bounds of each aggregate to all of its members. This is
+     * only valid for backlog and output bounds.
+     * @param bounds the bounds of an analysis of the aggregated network,
+     * indexed by flow-id and vertex-id
+     * @return the bounds of all flows, indexed by flow-id and vertex-id
+     */
+    public Map<Integer, Map<Integer, Arrival>> disaggregate(Map<Integer, Map<Integer, Arrival>> bounds) {
+        Map<Integer, Map<Integer, Arrival>> result = new HashMap<>(bounds);
+        for (Map.Entry<Integer, List<Integer>> entry : members.entrySet()) {
+            Map<Integer, Arrival> aggregateBounds = bounds.get(entry.getKey());
+            if (aggregateBounds == null) {
+                continue;
+            }
+            for (Integer flowID : entry.getValue()) {
+                result.put(flowID, new HashMap<>(aggregateBounds));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ID of the aggregate a flow belongs to.
+     * @param flowID the ID of the flow
+     * @return the ID of the aggregate or the ID of the flow itself, if it
+     * was not aggregated
+     */
+    public int getAggregateOf(int flowID) {
+        Integer aggregate = aggregates.get(flowID);
+        return aggregate != null ? aggregate : flowID;
+    }
+
+    /**
+     * Returns the members of an aggregate.
+     * @param aggregateID the ID of the aggregate
+     * @return the IDs of the members in ascending order, or only the given
+     * ID, if it is not an aggregate
+     */
+    public List<Integer> getMembers(int aggregateID) {
+        List<Integer> memberIDs = members.get(aggregateID);
+        return memberIDs != null ? Collections.unmodifiableList(memberIDs) : Collections.singletonList(aggregateID);
+    }
+
+    /**
+     * Returns the number of flows, which were removed from the network by
+     * the aggregation.
+     * @return the number of removed flows
+     */
+    public int getNumberOfRemovedFlows() {
+        return aggregates.size() - members.size();
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.BadInitializationException;
+import unikl.disco.calculator.symbolic_math.Service;
+import unikl.disco.misc.AnalysisException;
+
+/**
+ * A {@link SimpleAnalysis}, which keeps its intermediate results
+ * between analyses. For every vertex the arrivals of its flows and the
+ * leftover services before serving them are memoized, together with
+ * the outputs, which are handed to the next vertices. The cache is
+ * registered as {@link NetworkListener} of the network, hence every
+ * change of the network (as caused by the {@link
+ * unikl.disco.calculator.commands.Command}s) invalidates only the
+ * changed vertices and the vertices downstream of them. The next
+ * analysis recomputes just these vertices, and only as far as they are
+ * needed for the requested bound.
+ * The network itself is never altered by the analysis. The Hoelder
+ * parameters of the memoized expressions are numbered independently,
+ * starting after the ones of the network.
+ * @author Sebastian Henningsen
+ * @see SimpleAnalysis
+ */
+public class IncrementalAnalysis implements NetworkListener {
+
+    private final Network nw;
+    // Creates the Hoelder parameters of the memoized expressions
+    private Network hoelderSource;
+    private int firstHoelderID;
+    // The served flows of each vertex in the order they are served
+    private final Map<Integer, List<Step>> entries = new HashMap<>();
+    // The vertices, whose entries use the outputs of a vertex
+    private final Map<Integer, Set<Integer>> dependents = new HashMap<>();
+    // The vertices, whose entries contain a flow
+    private final Map<Integer, Set<Integer>> flowIndex = new HashMap<>();
+    private int computedVertices;
+
+    /**
+     * Creates an empty cache and registers it at the network
+     * @param nw the network to be analyzed
+     */
+    public IncrementalAnalysis(Network nw) {
+        this.nw = nw;
+        resetHoelders();
+        nw.addListener(this);
+    }
+
+    /**
+     * Calculates the bound of a flow at a vertex. The vertices needed for
+     * this are only computed, if they changed since the last analysis.
+     * @param flowID the flow of interest
+     * @param vertexID the vertex of interest
+     * @param boundtype the type of the bound
+     * @return The bound in the {@link Arrival}-representation.
+     * @throws ArrivalNotAvailableException
+     * @throws DeadlockException
+     * @throws BadInitializationException
+     */
+    public synchronized Arrival analyze(int flowID, int vertexID, AbstractAnalysis.Boundtype boundtype)
+            throws ArrivalNotAvailableException, DeadlockException, BadInitializationException {
+        // Hoelder parameters created by the network in the meantime might collide with the memoized ones
+        if (nw.getHOELDER_ID() != firstHoelderID) {
+            clear();
+        }
+        Step step = findStep(ensure(vertexID, new HashSet<Integer>()), flowID);
+        if (step == null) {
+            throw new ArrivalNotAvailableException("Flow " + flowID + " does not traverse vertex " + vertexID + ".", nw.getVertex(vertexID));
+        }
+        SimpleAnalysis analysis = new SimpleAnalysis(hoelderSource, null, null, flowID, vertexID, boundtype);
+        return analysis.calculateBound(step.arrival, step.service);
+    }
+
+    /**
+     * Unregisters the cache from the network
+     */
+    public synchronized void dispose() {
+        nw.removeListener(this);
+        clear();
+    }
+
+    /**
+     *
+     * @return the analyzed network
+     */
+    public Network getNetwork() {
+        return nw;
+    }
+
+    /**
+     *
+     * @return the number of vertices computed so far, including
+     * recomputations
+     */
+    public synchronized int getComputedVertices() {
+        return computedVertices;
+    }
+
+    /**
+     * Computes the entry of a vertex, if it is not memoized. This
+     * recursively computes the entries of the vertices, from which the
+     * arrivals of its flows stem.
+     */
+    private List<Step> ensure(int vertexID, Set<Integer> visiting)
+            throws ArrivalNotAvailableException, DeadlockException {
+        List<Step> steps = entries.get(vertexID);
+        if (steps != null) {
+            return steps;
+        }
+        Vertex vertex = nw.getVertex(vertexID);
+        if (vertex == null) {
+            throw new AnalysisException("There is no vertex with ID " + vertexID + ".");
+        }
+        if (!visiting.add(vertexID)) {
+            throw new DeadlockException("Vertex " + vertexID + " depends on its own outputs. Non-Feed-Forward-Network?");
+        }
+
+        // Flows are served in descending priorities like in Vertex.serve()
+        List<Map.Entry<Integer, Integer>> order = new ArrayList<>(vertex.getAllFlowPriorities().entrySet());
+        Collections.sort(order, new Comparator<Map.Entry<Integer, Integer>>() {
+            @Override
+            public int compare(Map.Entry<Integer, Integer> e1, Map.Entry<Integer, Integer> e2) {
+                int byPriority = Integer.compare(e2.getValue(), e1.getValue());
+                return byPriority != 0 ? byPriority : Integer.compare(e1.getKey(), e2.getKey());
+            }
+        });
+
+        steps = new ArrayList<>(order.size());
+        Service service = vertex.getService();
+        for (Map.Entry<Integer, Integer> entry : order) {
+            int flowID = entry.getKey();
+            Arrival arrival = vertex.getArrivalOfFlow(flowID);
+            if (arrival == null) {
+                // The arrival is the output of the previous vertex on the route
+                List<Integer> route = nw.getFlow(flowID).getVerticeIDs();
+                int index = route.indexOf(vertexID);
+                Step upstream = null;
+                if (index > 0) {
+                    int predecessor = route.get(index - 1);
+                    upstream = findStep(ensure(predecessor, visiting), flowID);
+                    getOrCreate(dependents, predecessor).add(vertexID);
+                }
+                if (upstream == null) {
+                    throw new ArrivalNotAvailableException("The arrival of flow " + flowID + " at vertex " + vertexID + " can't be established.", vertex);
+                }
+                arrival = upstream.output;
+            }
+            Arrival output = new Arrival(hoelderSource).output(arrival, service);
+            Service leftover = new Service(hoelderSource).leftover(arrival, service);
+            steps.add(new Step(flowID, arrival, service, output));
+            getOrCreate(flowIndex, flowID).add(vertexID);
+            service = leftover;
+        }
+        visiting.remove(vertexID);
+        entries.put(vertexID, steps);
+        computedVertices++;
+        return steps;
+    }
+
+    private static Step findStep(List<Step> steps, int flowID) {
+        for (Step step : steps) {
+            if (step.flowID == flowID) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    private static Set<Integer> getOrCreate(Map<Integer, Set<Integer>> map, int key) {
+        Set<Integer> set = map.get(key);
+        if (set == null) {
+            set = new HashSet<>();
+            map.put(key, set);
+        }
+        return set;
+    }
+
+    /**
+     * Removes the entry of a vertex and of all vertices downstream of it
+     */
+    private void invalidate(int vertexID) {
+        entries.remove(vertexID);
+        Set<Integer> downstream = dependents.remove(vertexID);
+        if (downstream != null) {
+            for (Integer dependent : downstream) {
+                invalidate(dependent);
+            }
+        }
+    }
+
+    /**
+     * Removes the entries of all vertices, which are or had been traversed
+     * by the flow, and of all vertices downstream of them
+     */
+    private void invalidate(Flow flow) {
+        Set<Integer> vertexIDs = new HashSet<>(flow.getVerticeIDs());
+        Set<Integer> known = flowIndex.remove(flow.getID());
+        if (known != null) {
+            vertexIDs.addAll(known);
+        }
+        for (Integer vertexID : vertexIDs) {
+            invalidate(vertexID);
+        }
+    }
+
+    private void resetHoelders() {
+        firstHoelderID = nw.getHOELDER_ID();
+        hoelderSource = new Network();
+        hoelderSource.resetHOELDER_ID(firstHoelderID);
+    }
+
+    @Override
+    public synchronized void vertexAdded(Vertex newVertex) {
+        // The vertex might replace an existing one with the same ID
+        invalidate(newVertex.getID());
+    }
+
+    @Override
+    public synchronized void vertexRemoved(Vertex removedVertex) {
+        if (removedVertex != null) {
+            invalidate(removedVertex.getID());
+        }
+    }
+
+    @Override
+    public synchronized void vertexChanged(Vertex changedVertex) {
+        invalidate(changedVertex.getID());
+    }
+
+    @Override
+    public synchronized void flowAdded(Flow newFlow) {
+        invalidate(newFlow);
+    }
+
+    @Override
+    public synchronized void flowRemoved(Flow removedFlow) {
+        invalidate(removedFlow);
+    }
+
+    @Override
+    public synchronized void flowChanged(Flow changedFlow) {
+        invalidate(changedFlow);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        dependents.clear();
+        flowIndex.clear();
+        resetHoelders();
+    }
+
+    /**
+     * The serving of a flow at a vertex
+     */
+    private static class Step {
+
+        final int flowID;
+        final Arrival arrival;
+        final Service service;
+        final Arrival output;
+
+        Step(int flowID, Arrival arrival, Service service, Arrival output) {
+            this.flowID = flowID;
+            this.arrival = arrival;
+            this.service = service;
+            this.output = output;
+        }
+    }
+}
@@ -298,8 +298,8 @@ public class LadderAnalysis extends AbstractAnalysis {
 			}
 			//Processing of dependencies: Hoelder parameters are introduced for each dependency encountered.
 			//Splitting off the flow of interest from the calculations
-			if(!SetUtils.getIntersection(arrival.getArrivaldependencies(),SetUtils.getUnion(agg_and_lo_arrival)).isEmpty() 
-					|| !SetUtils.getIntersection(arrival.getServicedependencies(),SetUtils.getUnion(agg_and_lo_service)).isEmpty())
+			if(SetUtils.intersects(arrival.getArrivaldependencies(), SetUtils.getUnion(agg_and_lo_arrival)) 
+					|| SetUtils.intersects(arrival.getServicedependencies(), SetUtils.getUnion(agg_and_lo_service)))
 					{
 				Hoelder hoelder = nw.createHoelder();
 				rho = new UnitaryMinus(new scaledFunction(arrival.getRho(),hoelder,true));
@@ -317,8 +317,8 @@ public class LadderAnalysis extends AbstractAnalysis {
 				sigma_A = arrival.getSigma();
 			}
 			//Splitting off the aggregated through-flow from the calculations
-			if(!SetUtils.getIntersection(aggregated_through.getArrivaldependencies(), SetUtils.getUnion(lo_arrival)).isEmpty()
-					|| !SetUtils.getIntersection(aggregated_through.getArrivaldependencies(), SetUtils.getUnion(lo_service)).isEmpty()){
+			if(SetUtils.intersects(aggregated_through.getArrivaldependencies(), SetUtils.getUnion(lo_arrival))
+					|| SetUtils.intersects(aggregated_through.getArrivaldependencies(), SetUtils.getUnion(lo_service))){
 				Hoelder hoelder = nw.createHoelder();
 				rho_agg = new scaledFunction(rho_agg,hoelder,true);
 				sigma_agg = new scaledFunction(sigma_agg,hoelder,true);
@@ -333,8 +333,8 @@ public class LadderAnalysis extends AbstractAnalysis {
 			for(Service leftover_service : leftover_services){
 				reduced_lo_arrival.remove(leftover_service.getArrivaldependencies());
 				reduced_lo_service.remove(leftover_service.getServicedependencies());
-				if(!SetUtils.getIntersection(leftover_service.getArrivaldependencies(), SetUtils.getUnion(reduced_lo_arrival)).isEmpty()
-					||	!SetUtils.getIntersection(leftover_service.getServicedependencies(), SetUtils.getUnion(reduced_lo_service)).isEmpty()){
+				if(SetUtils.intersects(leftover_service.getArrivaldependencies(), SetUtils.getUnion(reduced_lo_arrival))
+					||	SetUtils.intersects(leftover_service.getServicedependencies(), SetUtils.getUnion(reduced_lo_service))){
 					Hoelder hoelder = nw.createHoelder();
 					leftover_service.setRho(new scaledFunction(leftover_service.getRho(),hoelder,true));
 					leftover_service.setSigma(new scaledFunction(leftover_service.getSigma(),hoelder,true));
@@ -32,9 +32,14 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import unikl.disco.calculator.SNC;
@@ -57,6 +62,12 @@ import unikl.disco.misc.NetworkActionException;
  * consisting of {@link Flow}s and {@link vertex}-objects. It has two static
  * variables, which are used to automatically tag new nodes and flows with
  * distinct IDs.
+ * <p>
+ * Besides the full {@link #deepCopy()} a network can be copied by
+ * {@link #snapshot()} in constant time. Both networks then share their
+ * vertices and flows until one of them accesses an element for the
+ * first time, at which point this element is copied into the accessing
+ * network (copy-on-write).
  *
  * @author Michael Beck
  * @author Sebastian Henningsen
@@ -77,6 +88,15 @@ public class Network implements Serializable {
     private Map<Integer, Vertex> vertices;
     private Map<Integer, Hoelder> hoelders;
     private List<NetworkListener> listeners;
+    // The network this snapshot was taken from, Hoelder IDs are drawn from it
+    private Network origin;
+    // Whether the maps are shared with a snapshot and have to be copied before writing
+    private boolean sharedMaps;
+    // The IDs of the elements not shared with a snapshot, null if all are owned
+    private Set<Integer> ownedVertices;
+    private Set<Integer> ownedFlows;
+    // Maps the vertex aliases to the lowest ID carrying them, built on first lookup
+    private Map<String, Integer> vertexAliases;
 
     // Constructor
     /**
@@ -126,10 +146,17 @@ public class Network implements Serializable {
      *
      * @return the newly created Hoelder-Object.
      */
-    public Hoelder createHoelder() {
-        Hoelder hoelder = new Hoelder(HOELDER_ID);
+    public synchronized Hoelder createHoelder() {
+        Hoelder hoelder;
+        // Snapshots share the Hoelder IDs with their origin, since their expressions are mixed
+        if (origin != null) {
+            hoelder = origin.createHoelder();
+        } else {
+            hoelder = new Hoelder(HOELDER_ID);
+            incrementHOELDER_ID();
+        }
+        ensureOwnMaps();
         hoelders.put(hoelder.getHoelderID(), hoelder);
-        incrementHOELDER_ID();
         return hoelder;
     }
 
@@ -140,7 +167,7 @@ public class Network implements Serializable {
      */
     public void addVertex(String alias) {
         Vertex vertex = new Vertex(VERTEX_ID, alias, this);
-        vertices.put(VERTEX_ID, vertex);
+        putVertex(vertex);
         incrementVERTEX_ID();
         for (NetworkListener l : listeners) {
             l.vertexAdded(vertex);
@@ -166,7 +193,7 @@ public class Network implements Serializable {
      */
     public Vertex addVertex(Service service, String alias) {
         Vertex vertex = new Vertex(VERTEX_ID, service, alias, this);
-        vertices.put(VERTEX_ID, vertex);
+        putVertex(vertex);
         incrementVERTEX_ID();
         for (NetworkListener l : listeners) {
             l.vertexAdded(vertex);
@@ -181,7 +208,7 @@ public class Network implements Serializable {
      * @return
      */
     public Vertex addVertex(Vertex vertex) {
-        vertices.put(vertex.getID(), vertex);
+        putVertex(vertex);
         for (NetworkListener l : listeners) {
             l.vertexAdded(vertex);
         }
@@ -223,10 +250,14 @@ public class Network implements Serializable {
             Vertex v1 = getVertex(vertex1ID);
             Vertex v2 = getVertex(vertex2ID);
             Flow foi = getFlow(flowOfInterestID);
-            Service convService = v1.getService().concatenate(v1.getService(), v2.getService());
+            Service convService = new Service(this).concatenate(v1.getService(), v2.getService());
             Vertex convVertex = addVertex(convService, vertex1ID + " conv. " + vertex2ID);
             Arrival arrival = v1.getArrivalOfFlow(flowOfInterestID);
-            convVertex.addArrival(v1.getPriorityOfFlow(flowOfInterestID), flowOfInterestID, arrival);
+            if (arrival != null) {
+                convVertex.addArrival(v1.getPriorityOfFlow(flowOfInterestID), flowOfInterestID, arrival);
+            } else {
+                convVertex.addUnknownArrival(v1.getPriorityOfFlow(flowOfInterestID), flowOfInterestID);
+            }
             foi.replaceFirstOccurence(v1.getID(), v2.getID(), convVertex);
 
             /*Set<Integer> v1Flows = v1.getAllFlowIDs();
@@ -275,6 +306,9 @@ public class Network implements Serializable {
      */
     public void setServiceAt(Vertex vertex, Service service) {
         vertex.setMGFService(service);
+        for (NetworkListener l : listeners) {
+            l.vertexChanged(vertex);
+        }
     }
 
     /**
@@ -284,7 +318,7 @@ public class Network implements Serializable {
      * @param service the new service at the specific vertex
      */
     public void setServiceAt(int vertex_id, Service service) {
-        vertices.get(vertex_id).setMGFService(service);
+        setServiceAt(getVertex(vertex_id), service);
     }
 
     /**
@@ -309,13 +343,18 @@ public class Network implements Serializable {
         boolean success = false;
         Vertex vertex = getVertex(id);
         if (vertices.containsKey(id)) {
-            for (int i : getVertex(id).getAllFlowPriorities().keySet()) {
-                flows.get(i).removeVertex(id);
+            for (int i : vertex.getAllFlowPriorities().keySet()) {
+                getFlow(i).removeVertex(id);
                 for (NetworkListener l : listeners) {
                     l.flowChanged(getFlow(i));
                 }
             }
+            ensureOwnMaps();
             vertices.remove(id);
+            if (ownedVertices != null) {
+                ownedVertices.remove(id);
+            }
+            unindexAlias(vertex);
             success = true;
         }
         // Notify listeners
@@ -353,18 +392,18 @@ public class Network implements Serializable {
         Flow flow = new Flow(FLOW_ID, route, arrivals, priorities, alias, this);
         // Check whether every vertex exists
         for (int i = 0; i < route.size(); i++) {
-            if (vertices.get(route.get(i)) == null) {
+            if (!vertices.containsKey(route.get(i))) {
                 throw new NetworkActionException("Error while adding flow " + alias + ". No node with ID " + i);
             }
         }
         //Initializes the first arrival at the first vertex
-        Vertex first_vertex = vertices.get(route.get(0));
+        Vertex first_vertex = getVertex(route.get(0));
 
-        flows.put(FLOW_ID, flow);
+        putFlow(flow);
         //Writes the flow in its corresponding vertices
         for (int i = 0; i < route.size(); i++) {
             Vertex vertex;
-            vertex = vertices.get(route.get(i));
+            vertex = getVertex(route.get(i));
             vertex.addUnknownArrival(priorities.get(i), FLOW_ID);
         }
         first_vertex.learnArrival(FLOW_ID, initial_arrival);
@@ -389,10 +428,15 @@ public class Network implements Serializable {
     public void appendNode(int flow_id, int vertex_id, int priority) {
 
         //Adds the vertex to the path of the flow
-        flows.get(flow_id).addNodetoPath(vertex_id, priority);
+        getFlow(flow_id).addNodetoPath(vertex_id, priority);
 
         //Adds a non-established arrival to the appended vertex
-        vertices.get(vertex_id).addUnknownArrival(priority, flow_id);
+        getVertex(vertex_id).addUnknownArrival(priority, flow_id);
+
+        // Notify the listeners
+        for (NetworkListener l : listeners) {
+            l.flowChanged(getFlow(flow_id));
+        }
     }
 
     /**
@@ -405,11 +449,16 @@ public class Network implements Serializable {
     public void setInitialArrival(int flow_id, Arrival arrival) throws ArrivalNotAvailableException {
 
         //initializes the arrival at the flow
-        flows.get(flow_id).setInitialArrival(arrival);
+        getFlow(flow_id).setInitialArrival(arrival);
 
         //the arrival is established at the vertex
-        Vertex vertex = vertices.get(flows.get(flow_id).getFirstVertexID());
+        Vertex vertex = getVertex(getFlow(flow_id).getFirstVertexID());
         vertex.learnArrival(flow_id, arrival);
+
+        // Notify the listeners
+        for (NetworkListener l : listeners) {
+            l.flowChanged(getFlow(flow_id));
+        }
     }
 
     /**
@@ -424,9 +473,13 @@ public class Network implements Serializable {
         boolean success = false;
         if (flows.containsKey(flow.getID())) {
             for (int i : flow.getVerticeIDs()) {
-                vertices.get(i).removeFlow(flow.getID());
+                getVertex(i).removeFlow(flow.getID());
             }
+            ensureOwnMaps();
             flows.remove(flow.getID());
+            if (ownedFlows != null) {
+                ownedFlows.remove(flow.getID());
+            }
             success = true;
 
         }
@@ -502,18 +555,140 @@ public class Network implements Serializable {
      * @return
      */
     public Vertex getVertex(int id) {
-        return vertices.get(id);
+        Vertex vertex = vertices.get(id);
+        if (vertex != null && ownedVertices != null && !ownedVertices.contains(id)) {
+            // The vertex is still shared with a snapshot
+            ensureOwnMaps();
+            vertex = vertex.copy(this);
+            vertices.put(id, vertex);
+            ownedVertices.add(id);
+        }
+        return vertex;
+    }
+
+    /**
+     * Checks whether the network is feed-forward, without analyzing it.
+     *
+     * @throws CyclicDependencyException if the flows induce a cycle
+     * between the vertices, carrying the cycle and the involved flows
+     * @see VertexDependencyGraph#verifyFeedForward()
+     */
+    public void verifyFeedForward() throws CyclicDependencyException {
+        new VertexDependencyGraph(getVertexView(), getFlowView()).verifyFeedForward();
     }
 
+    /**
+     * Splits the network into its flow-connected components. Two vertices
+     * belong to the same component, if they are connected by a chain of
+     * flows. Vertices of different components do not influence each other,
+     * hence the components can be analyzed independently.
+     *
+     * @return the vertex IDs of each component, ordered by the lowest vertex
+     * ID of the component
+     */
+    public List<Set<Integer>> getComponents() {
+        Map<Integer, Integer> parents = new HashMap<>(vertices.size());
+        for (Integer vertexID : vertices.keySet()) {
+            parents.put(vertexID, vertexID);
+        }
+        for (Flow flow : flows.values()) {
+            List<Integer> route = flow.getVerticeIDs();
+            for (int i = 1; i < route.size(); i++) {
+                union(parents, route.get(0), route.get(i));
+            }
+        }
+        // Iterating the vertices in ascending order creates the components in the same order
+        Map<Integer, Set<Integer>> components = new LinkedHashMap<>();
+        for (Integer vertexID : new TreeSet<>(vertices.keySet())) {
+            Integer root = findRoot(parents, vertexID);
+            Set<Integer> component = components.get(root);
+            if (component == null) {
+                component = new HashSet<>();
+                components.put(root, component);
+            }
+            component.add(vertexID);
+        }
+        return new ArrayList<>(components.values());
+    }
+
+    /**
+     * Returns the flow-connected component a vertex belongs to, see
+     * {@link #getComponents()}.
+     *
+     * @param vertexID the ID of the vertex
+     * @return the vertex IDs of the component
+     * @throws NetworkActionException if there is no such vertex
+     */
+    public Set<Integer> getComponentOf(int vertexID) {
+        for (Set<Integer> component : getComponents()) {
+            if (component.contains(vertexID)) {
+                return component;
+            }
+        }
+        throw new NetworkActionException("There is no vertex with ID " + vertexID + ".");
+    }
+
+    private static Integer findRoot(Map<Integer, Integer> parents, Integer vertexID) {
+        Integer root = vertexID;
+        while (!root.equals(parents.get(root))) {
+            // Path halving keeps the trees flat
+            parents.put(root, parents.get(parents.get(root)));
+            root = parents.get(root);
+        }
+        return root;
+    }
+
+    private static void union(Map<Integer, Integer> parents, Integer vertexID1, Integer vertexID2) {
+        // Routes might refer to vertices, which are not part of the network
+        if (!parents.containsKey(vertexID1) || !parents.containsKey(vertexID2)) {
+            return;
+        }
+        Integer root1 = findRoot(parents, vertexID1);
+        Integer root2 = findRoot(parents, vertexID2);
+        if (!root1.equals(root2)) {
+            parents.put(root2, root1);
+        }
+    }
+
+    /**
+     * Looks up a vertex by its alias. If several vertices carry the alias
+     * the one with the lowest ID is returned.
+     *
+     * @param name the alias of the vertex
+     * @return the vertex or null, if no vertex carries this alias
+     */
     public Vertex getVertexByName(String name) {
-        for (Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            Integer key = entry.getKey();
-            Vertex vertex = entry.getValue();
-            if (vertex.getAlias().equals(name)) {
-                return vertex;
+        if (vertexAliases == null) {
+            vertexAliases = new HashMap<>(vertices.size());
+            for (Vertex vertex : vertices.values()) {
+                indexAlias(vertex);
+            }
+        }
+        Integer id = vertexAliases.get(name);
+        return (id != null) ? getVertex(id) : null;
+    }
+
+    private void indexAlias(Vertex vertex) {
+        Integer id = vertexAliases.get(vertex.getAlias());
+        if (id == null || vertex.getID() < id) {
+            vertexAliases.put(vertex.getAlias(), vertex.getID());
+        }
+    }
+
+    /**
+     * Removes a vertex, which is no longer part of the network, from the
+     * alias index. Another vertex carrying the same alias takes its place.
+     */
+    private void unindexAlias(Vertex vertex) {
+        if (vertexAliases == null || !Integer.valueOf(vertex.getID()).equals(vertexAliases.get(vertex.getAlias()))) {
+            return;
+        }
+        vertexAliases.remove(vertex.getAlias());
+        for (Vertex other : vertices.values()) {
+            if (other.getID() != vertex.getID() && other.getAlias().equals(vertex.getAlias())) {
+                indexAlias(other);
             }
         }
-        return null;
     }
 
     /**
@@ -522,7 +697,53 @@ public class Network implements Serializable {
      * @return
      */
     public Flow getFlow(int id) {
-        return flows.get(id);
+        Flow flow = flows.get(id);
+        if (flow != null && ownedFlows != null && !ownedFlows.contains(id)) {
+            // The flow is still shared with a snapshot
+            ensureOwnMaps();
+            flow = flow.copy(this);
+            flows.put(id, flow);
+            ownedFlows.add(id);
+        }
+        return flow;
+    }
+
+    private void putVertex(Vertex vertex) {
+        ensureOwnMaps();
+        Vertex replaced = vertices.put(vertex.getID(), vertex);
+        if (ownedVertices != null) {
+            ownedVertices.add(vertex.getID());
+        }
+        if (vertexAliases != null) {
+            if (replaced != null) {
+                unindexAlias(replaced);
+            }
+            indexAlias(vertex);
+        }
+    }
+
+    private void putFlow(Flow flow) {
+        ensureOwnMaps();
+        flows.put(flow.getID(), flow);
+        if (ownedFlows != null) {
+            ownedFlows.add(flow.getID());
+        }
+    }
+
+    /**
+     * Replaces the maps shared with a snapshot by own copies. The
+     * elements themselves stay shared until they are accessed.
+     */
+    private void ensureOwnMaps() {
+        if (sharedMaps) {
+            vertices = new HashMap<>(vertices);
+            flows = new HashMap<>(flows);
+            hoelders = new HashMap<>(hoelders);
+            if (vertexAliases != null) {
+                vertexAliases = new HashMap<>(vertexAliases);
+            }
+            sharedMaps = false;
+        }
     }
 
     /**
@@ -554,34 +775,138 @@ public class Network implements Serializable {
      * @return
      */
     public Map<Integer, Vertex> getVertices() {
+        // The caller may alter any vertex, hence all of them are taken over
+        ensureOwnMaps();
+        if (ownedVertices != null) {
+            for (Integer id : new ArrayList<>(vertices.keySet())) {
+                getVertex(id);
+            }
+            ownedVertices = null;
+        }
         return vertices;
     }
 
     /**
+     * Returns the vertices without taking them over from a snapshot. The
+     * vertices must not be altered.
+     *
+     * @return
+     */
+    Map<Integer, Vertex> getVertexView() {
+        return Collections.unmodifiableMap(vertices);
+    }
+
+    /**
+     * Returns the flows without taking them over from a snapshot. The flows
+     * must not be altered.
      *
      * @return
      */
+    Map<Integer, Flow> getFlowView() {
+        return Collections.unmodifiableMap(flows);
+    }
+
+    /**
+     * Creates a snapshot of this network in constant time. Snapshot and
+     * network are independent of each other, but share all vertices and
+     * flows until they are accessed by one of them. Hence, references to
+     * vertices or flows, which were obtained before the snapshot was
+     * taken, must not be used to alter the network afterwards. Listeners
+     * are not copied.
+     *
+     * @return the snapshot
+     */
+    public Network snapshot() {
+        Network copy = new Network(vertices, flows, hoelders);
+        copy.FLOW_ID = FLOW_ID;
+        copy.VERTEX_ID = VERTEX_ID;
+        copy.HOELDER_ID = HOELDER_ID;
+        copy.origin = (origin != null) ? origin : this;
+        copy.sharedMaps = true;
+        copy.ownedVertices = new HashSet<>();
+        copy.ownedFlows = new HashSet<>();
+        copy.vertexAliases = vertexAliases;
+        sharedMaps = true;
+        ownedVertices = new HashSet<>();
+        ownedFlows = new HashSet<>();
+        return copy;
+    }
+
+    /**
+     * Creates a copy of this network, which draws its Hoelder IDs on its
+     * own, see {@link #detachedCopy()}.
+     *
+     * @return the copy
+     */
     public Network deepCopy() {
+        return copy(null, null);
+    }
 
-        Map<Integer, Vertex> newVertices = new HashMap(this.vertices.size());
-        Map<Integer, Flow> newFlows = new HashMap(this.flows.size());
-        Map<Integer, Hoelder> newHoelders = new HashMap(this.hoelders.size());
+    /**
+     * Creates a copy of this network, which is completely independent of
+     * it. The copy draws new Hoelder IDs on its own, starting after the
+     * ones used so far. Hence, this network is not altered by analyzing the
+     * copy, but the expressions of the copy must not be mixed with the ones
+     * of other copies. Snapshots of the copy draw their IDs from the copy.
+     *
+     * @return the copy
+     */
+    public Network detachedCopy() {
+        return copy(null, null);
+    }
 
-        for (Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            Vertex newVertex = entry.getValue().copy();
-            newVertices.put(entry.getKey(), newVertex);
+    /**
+     * Creates a detached copy of a part of this network, see
+     * {@link #detachedCopy()}. The copy consists of the given vertices and
+     * the flows traversing them. The vertices are meant to form one or more
+     * components of the network, see {@link #getComponents()}, otherwise the
+     * routes of the copied flows might leave the copy.
+     *
+     * @param vertexIDs the IDs of the vertices to be copied
+     * @return the copy
+     */
+    public Network detachedCopy(Set<Integer> vertexIDs) {
+        return copy(null, vertexIDs);
+    }
+
+    private Network copy(Network origin, Set<Integer> vertexIDs) {
+
+        Map<Integer, Vertex> newVertices = new HashMap(vertexIDs != null ? vertexIDs.size() : this.vertices.size());
+        Map<Integer, Flow> newFlows = new HashMap(vertexIDs != null ? vertexIDs.size() : this.flows.size());
+        Map<Integer, Hoelder> newHoelders = new HashMap(this.hoelders.size());
+        Network copy = new Network(newVertices, newFlows, newHoelders);
+
+        // Only the requested part is visited, such that copying all components one by one takes linear time
+        Set<Integer> vertexKeys = (vertexIDs != null) ? vertexIDs : vertices.keySet();
+        Set<Integer> flowKeys = (vertexIDs != null) ? new HashSet<Integer>() : flows.keySet();
+        for (Integer vertexID : vertexKeys) {
+            Vertex vertex = vertices.get(vertexID);
+            if (vertex == null) {
+                continue;
+            }
+            newVertices.put(vertexID, vertex.copy(copy));
+            if (vertexIDs != null) {
+                flowKeys.addAll(vertex.getAllFlowPriorities().keySet());
+            }
         }
 
-        for (Map.Entry<Integer, Flow> entry : flows.entrySet()) {
-            Flow newFlow = entry.getValue().copy();
-            newFlows.put(entry.getKey(), newFlow);
+        for (Integer flowID : flowKeys) {
+            Flow flow = flows.get(flowID);
+            if (flow == null) {
+                continue;
+            }
+            newFlows.put(flowID, flow.copy(copy));
         }
 
         for (Map.Entry<Integer, Hoelder> entry : hoelders.entrySet()) {
             Hoelder newHoelder = entry.getValue().copy();
             newHoelders.put(entry.getKey(), newHoelder);
         }
-        return new Network(newVertices, newFlows, newHoelders);
+        copy.FLOW_ID = FLOW_ID;
+        copy.VERTEX_ID = VERTEX_ID;
+        copy.HOELDER_ID = HOELDER_ID;
+        copy.origin = origin;
+        return copy;
     }
 
     /**
@@ -683,7 +1008,7 @@ public class Network implements Serializable {
             if (v == null) {
                 throw new FileOperationException("Could not find Vertex " + entry[0].trim(), line);
             }
-            route.add(this.getVertexByName(entry[0].trim()).getID());
+            route.add(v.getID());
             priorities.add(Integer.parseInt(entry[1].trim()));
         }
 
@@ -804,6 +1129,14 @@ public class Network implements Serializable {
      * @return
      */
     public Map<Integer, Flow> getFlows() {
+        // The caller may alter any flow, hence all of them are taken over
+        ensureOwnMaps();
+        if (ownedFlows != null) {
+            for (Integer id : new ArrayList<>(flows.keySet())) {
+                getFlow(id);
+            }
+            ownedFlows = null;
+        }
         return flows;
     }
 
@@ -812,6 +1145,7 @@ public class Network implements Serializable {
      * @return
      */
     public Map<Integer, Hoelder> getHoelders() {
+        ensureOwnMaps();
         return hoelders;
     }
 
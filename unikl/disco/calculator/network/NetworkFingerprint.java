@@ -0,0 +1,297 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.ComposedFunction;
+import unikl.disco.calculator.symbolic_math.Hoelder;
+import unikl.disco.calculator.symbolic_math.NewParameter;
+import unikl.disco.calculator.symbolic_math.ParameterSlot;
+import unikl.disco.calculator.symbolic_math.Service;
+import unikl.disco.calculator.symbolic_math.SymbolicFunction;
+import unikl.disco.calculator.symbolic_math.functions.ConstantFunction;
+import unikl.disco.calculator.symbolic_math.functions.EBBSigma;
+import unikl.disco.calculator.symbolic_math.functions.ExponentialSigma;
+import unikl.disco.calculator.symbolic_math.functions.PoissonRho;
+import unikl.disco.calculator.symbolic_math.functions.StationaryTBSigma;
+import unikl.disco.calculator.symbolic_math.functions.scaledFunction;
+
+/**
+ * A canonical description of the state of a {@link Network}: its
+ * vertices with their services and (known) arrivals, as well as the
+ * routes, priorities and arrivals of its flows. Two networks, which
+ * differ only in the identity of their objects or in the IDs of their
+ * Hoelder parameters, have the same fingerprint. Shared subexpressions
+ * are written only once, such that the size of the fingerprint is
+ * linear in the number of distinct expressions. Functions are written
+ * with their class and all values they depend on, Hoelder parameters by
+ * the order of their first occurrence.
+ * 
+ * @author Sebastian Henningsen
+ */
+public class NetworkFingerprint {
+
+    private final String canonicalForm;
+    private String digest;
+    private boolean exact = true;
+
+    // Used while building the canonical form
+    private StringBuilder builder;
+    private Map<Object, Integer> seen;
+    private Map<Hoelder, Integer> hoelderIndices;
+
+    /**
+     * Computes the fingerprint of the current state of <code>nw</code>
+     * @param nw
+     */
+    public NetworkFingerprint(Network nw) {
+        begin();
+
+        for (Map.Entry<Integer, Vertex> entry : new TreeMap<>(nw.getVertexView()).entrySet()) {
+            Vertex vertex = entry.getValue();
+            builder.append("V").append(entry.getKey()).append('{');
+            append(vertex.getService());
+            for (Map.Entry<Integer, Integer> priority : new TreeMap<>(vertex.getAllFlowPriorities()).entrySet()) {
+                builder.append(priority.getKey()).append(':').append(priority.getValue()).append('=');
+                append(vertex.getArrivalOfFlow(priority.getKey()));
+            }
+            builder.append("}\n");
+        }
+        for (Map.Entry<Integer, Flow> entry : new TreeMap<>(nw.getFlowView()).entrySet()) {
+            Flow flow = entry.getValue();
+            builder.append("F").append(entry.getKey()).append('{').append(flow.getVerticeIDs())
+                    .append(flow.getPriorities()).append(flow.getNumberOfEstablishedArrivals());
+            List<Arrival> arrivals = flow.getArrivals();
+            for (int i = 0; i < flow.getNumberOfEstablishedArrivals() && i < arrivals.size(); i++) {
+                append(arrivals.get(i));
+            }
+            builder.append("}\n");
+        }
+        canonicalForm = end();
+    }
+
+    /**
+     * Computes the fingerprint of some services and arrivals, e.g. the
+     * operands of a cached operation. Like for networks, the identity of
+     * the objects and the IDs of their Hoelder parameters do not matter.
+     * @param services
+     * @param arrivals
+     */
+    NetworkFingerprint(List<Service> services, List<Arrival> arrivals) {
+        begin();
+        for (Service service : services) {
+            append(service);
+            builder.append('\n');
+        }
+        for (Arrival arrival : arrivals) {
+            append(arrival);
+            builder.append('\n');
+        }
+        canonicalForm = end();
+    }
+
+    private void begin() {
+        builder = new StringBuilder();
+        seen = new IdentityHashMap<>();
+        hoelderIndices = new IdentityHashMap<>();
+    }
+
+    private String end() {
+        String result = builder.toString();
+        builder = null;
+        seen = null;
+        hoelderIndices = null;
+        return result;
+    }
+
+    private void append(Arrival arrival) {
+        if (arrival == null) {
+            builder.append('?');
+        } else if (!reference(arrival)) {
+            builder.append("A(");
+            append(arrival.getSigma());
+            builder.append(',');
+            append(arrival.getRho());
+            append(arrival.getArrivaldependencies(), arrival.getServicedependencies());
+            builder.append(')');
+        }
+    }
+
+    private void append(Service service) {
+        if (!reference(service)) {
+            builder.append("S(");
+            append(service.getSigma());
+            builder.append(',');
+            append(service.getRho());
+            append(service.getArrivaldependencies(), service.getServicedependencies());
+            builder.append(')');
+        }
+    }
+
+    private void append(Set<Integer> arrivalDependencies, Set<Integer> serviceDependencies) {
+        builder.append(new TreeSet<>(arrivalDependencies)).append(new TreeSet<>(serviceDependencies));
+    }
+
+    private void append(SymbolicFunction function) {
+        if (reference(function)) {
+            return;
+        }
+        if (function instanceof ParameterSlot) {
+            // Expressions containing different slots differ after rebinding, even if the bound functions are equal.
+            // The same slot needs no description of its binding: expressions refer to the slot itself, hence
+            // results computed from them, e.g. cached leftover services, follow every rebinding.
+            builder.append("Slot[").append(((ParameterSlot) function).getSlotID()).append(']');
+        } else if (function instanceof ComposedFunction) {
+            ComposedFunction composed = (ComposedFunction) function;
+            builder.append(function.getClass().getSimpleName()).append('(');
+            Hoelder hoelder = composed.getHoelder();
+            if (hoelder != null) {
+                append(hoelder);
+                if (function instanceof scaledFunction && !((scaledFunction) function).isPScaled()) {
+                    builder.append('q');
+                }
+                builder.append(';');
+            }
+            if (function instanceof PoissonRho) {
+                builder.append(((PoissonRho) function).getMu()).append(';');
+            }
+            for (SymbolicFunction component : composed.getComponents()) {
+                append(component);
+                builder.append(';');
+            }
+            builder.append(')');
+        } else {
+            builder.append(function.getClass().getSimpleName()).append('[');
+            appendLeaf(function);
+            builder.append(']');
+        }
+    }
+
+    /**
+     * Writes the values a function without components depends on. The
+     * string representations of the functions can't be used, as they omit
+     * some values, e.g. the maximal theta, and contain Hoelder IDs.
+     */
+    private void appendLeaf(SymbolicFunction function) {
+        if (function instanceof ConstantFunction) {
+            builder.append(((ConstantFunction) function).getRate()).append(',').append(function.getmaxTheta());
+        } else if (function instanceof StationaryTBSigma) {
+            builder.append(((StationaryTBSigma) function).getBucket()).append(',').append(function.getmaxTheta());
+        } else if (function instanceof EBBSigma) {
+            builder.append(((EBBSigma) function).getDecay()).append(',').append(((EBBSigma) function).getPrefactor());
+        } else if (function instanceof ExponentialSigma) {
+            builder.append(((ExponentialSigma) function).getLambda());
+        } else if (function instanceof NewParameter) {
+            // Its only parameter is the Hoelder parameter it stands for
+            for (Hoelder hoelder : function.getParameters().values()) {
+                append(hoelder);
+            }
+        } else {
+            // Unknown functions are described as precisely as possible
+            builder.append(function.toString()).append(',').append(function.getmaxTheta());
+            exact = false;
+        }
+    }
+
+    private void append(Hoelder hoelder) {
+        Integer index = hoelderIndices.get(hoelder);
+        if (index == null) {
+            index = hoelderIndices.size();
+            hoelderIndices.put(hoelder, index);
+        }
+        builder.append('h').append(index);
+    }
+
+    /**
+     * Writes a back reference, if the object has been written before
+     * @return true, if a reference was written
+     */
+    private boolean reference(Object object) {
+        Integer index = seen.get(object);
+        if (index != null) {
+            builder.append('#').append(index);
+            return true;
+        }
+        seen.put(object, seen.size());
+        return false;
+    }
+
+    /**
+     * Tells, whether all functions are known to the fingerprint. Otherwise,
+     * some values of unknown functions might be missing, such that
+     * different networks could have the same fingerprint.
+     * @return true, if every function is described by all its values
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getCanonicalForm() {
+        return canonicalForm;
+    }
+
+    /**
+     * Returns a SHA-256 digest of the canonical form in hexadecimal notation
+     * @return
+     */
+    public synchronized String getDigest() {
+        if (digest == null) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonicalForm.getBytes(StandardCharsets.UTF_8));
+                StringBuilder hex = new StringBuilder(2 * hash.length);
+                for (byte b : hash) {
+                    hex.append(String.format("%02x", b));
+                }
+                digest = hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                // Every Java platform is required to support SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+        return digest;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NetworkFingerprint && canonicalForm.equals(((NetworkFingerprint) obj).canonicalForm);
+    }
+
+    @Override
+    public int hashCode() {
+        return canonicalForm.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getDigest();
+    }
+}
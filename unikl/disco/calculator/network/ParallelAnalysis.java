@@ -0,0 +1,199 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.BadInitializationException;
+import unikl.disco.misc.AnalysisException;
+
+/**
+ * A {@link SimpleAnalysis}, which serves independent vertices in
+ * parallel. Instead of discovering servable vertices one at a time,
+ * the dependencies between the vertices are determined up front by a
+ * {@link VertexDependencyGraph}. The vertices of a wavefront of this
+ * graph only depend on vertices of earlier wavefronts, hence they know
+ * all of their arrivals once the earlier wavefronts are served and can
+ * be served concurrently. When a single bound is calculated, only the
+ * vertices the vertex of interest depends on are served.
+ * The resulting bounds are equal to the ones of the
+ * {@link SimpleAnalysis}, only the IDs of the Hoelder parameters might
+ * differ.
+ * @author Sebastian Henningsen
+ * @see VertexDependencyGraph
+ */
+public class ParallelAnalysis extends SimpleAnalysis {
+
+    /**
+     * Constructs the analysis, see {@link SimpleAnalysis}.
+     * @param nw
+     * @param vertices
+     * @param flows
+     * @param flow_of_interest
+     * @param vertex_of_interest
+     * @param boundtype
+     */
+    public ParallelAnalysis(Network nw, Map<Integer, Vertex> vertices, Map<Integer, Flow> flows, int flow_of_interest, int vertex_of_interest, Boundtype boundtype) {
+        super(nw, vertices, flows, flow_of_interest, vertex_of_interest, boundtype);
+    }
+
+    /**
+     * Analyzes the network by serving the wavefronts, which lead to the
+     * vertex of interest, one after another.
+     * @return The bound in the {@link Arrival}-representation.
+     * @throws ArrivalNotAvailableException
+     * @throws DeadlockException
+     * @throws BadInitializationException
+     */
+    @Override
+    public Arrival analyze() throws ArrivalNotAvailableException, DeadlockException, BadInitializationException {
+        VertexDependencyGraph graph = new VertexDependencyGraph(vertices, flows);
+        Set<Integer> relevant = graph.getAncestors(vertex_of_interest);
+        final AtomicReference<Arrival> bound = new AtomicReference<>();
+
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            for (List<Integer> wavefront : graph.getWavefronts()) {
+                List<Callable<Void>> tasks = new ArrayList<>(wavefront.size());
+                for (Integer vertexID : wavefront) {
+                    if (!relevant.contains(vertexID)) {
+                        continue;
+                    }
+                    final Vertex vertex = vertices.get(vertexID);
+                    tasks.add(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            while (!vertex.getAllFlowPriorities().isEmpty()) {
+                                int flowID = vertex.calculatePriority();
+                                if (vertex.getID() == vertex_of_interest && flowID == flow_of_interest) {
+                                    bound.set(calculateBound(flows.get(flowID).getLastArrival(), vertex.getService()));
+                                    return null;
+                                }
+                                serveAt(vertex, flowID);
+                            }
+                            return null;
+                        }
+                    });
+                }
+                invokeAll(pool, tasks);
+                if (bound.get() != null) {
+                    return bound.get();
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        throw new DeadlockException("Flow of Interest or Arrival of Interest can't be calculated. Non-Feed-Forward-Network?");
+    }
+
+    /**
+     * Analyzes the whole network in a single pass, serving the
+     * wavefronts one after another. See
+     * {@link SimpleAnalysis#analyzeAllFlows(boolean)}.
+     * @param lastHopsOnly if true, the bound of each flow is only
+     * calculated at the last vertex of its route
+     * @return the bounds in {@link Arrival}-representation, indexed
+     * by flow-id and vertex-id
+     * @throws ArrivalNotAvailableException
+     * @throws DeadlockException
+     * @throws BadInitializationException
+     */
+    @Override
+    public Map<Integer, Map<Integer, Arrival>> analyzeAllFlows(final boolean lastHopsOnly) throws ArrivalNotAvailableException, DeadlockException, BadInitializationException {
+        VertexDependencyGraph graph = new VertexDependencyGraph(vertices, flows);
+        final Map<Integer, Map<Integer, Arrival>> bounds = new HashMap<>();
+        for (Integer flowID : flows.keySet()) {
+            bounds.put(flowID, new ConcurrentHashMap<Integer, Arrival>());
+        }
+
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            for (List<Integer> wavefront : graph.getWavefronts()) {
+                List<Callable<Void>> tasks = new ArrayList<>(wavefront.size());
+                for (Integer vertexID : wavefront) {
+                    final Vertex vertex = vertices.get(vertexID);
+                    tasks.add(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            while (!vertex.getAllFlowPriorities().isEmpty()) {
+                                int flowID = vertex.calculatePriority();
+                                Flow flow = flows.get(flowID);
+                                //The served vertices are removed from the route, so the last vertex is the only one left
+                                if (!lastHopsOnly || flow.getVerticeIDs().size() == 1) {
+                                    bounds.get(flowID).put(vertex.getID(), calculateBound(flow.getLastArrival(), vertex.getService()));
+                                }
+                                serveAt(vertex, flowID);
+                            }
+                            return null;
+                        }
+                    });
+                }
+                invokeAll(pool, tasks);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return bounds;
+    }
+
+    private void serveAt(Vertex vertex, int flowID) throws ArrivalNotAvailableException, DeadlockException {
+        if (!vertex.canServe()) {
+            throw new DeadlockException("Not all arrivals are known at vertex " + vertex.getID() + ".");
+        }
+        forward(vertex, flowID);
+    }
+
+    /**
+     * Serves a wavefront and rethrows the exceptions of its tasks
+     */
+    static void invokeAll(ForkJoinPool pool, List<Callable<Void>> tasks)
+            throws ArrivalNotAvailableException, DeadlockException, BadInitializationException {
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AnalysisException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof ArrivalNotAvailableException) {
+                    throw (ArrivalNotAvailableException) cause;
+                } else if (cause instanceof DeadlockException) {
+                    throw (DeadlockException) cause;
+                } else if (cause instanceof BadInitializationException) {
+                    throw (BadInitializationException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else {
+                    throw new AnalysisException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.Service;
+
+/**
+ * A cache of the leftover services of tandem segments. The leftover
+ * service of a segment is the concatenation of the services of its
+ * vertices, from which the arrivals of the cross-flows at the first
+ * vertex are subtracted, see {@link EndToEndAnalysis}. Segments of a
+ * backbone are traversed by many flows of interest, hence the same
+ * leftover service is needed by many analyses.
+ * The key consists of the vertex sequence, the IDs of the subtracted
+ * cross-flows and the {@link NetworkFingerprint} of the services and
+ * arrivals involved. Hence, an entry is only found, if the segment looks
+ * exactly the same, regardless of the network or analysis it stems from.
+ * The entries need no invalidation, as long as the fingerprint covers
+ * every value of the functions. Segments containing functions, which
+ * are unknown to the fingerprint, are therefore not cached.
+ * Only services without Hoelder parameters are cached: the values of
+ * Hoelder parameters are altered by the optimization, hence they must
+ * not be shared between different bounds.
+ *
+ * @author Sebastian Henningsen
+ */
+public class SegmentServiceCache {
+
+    /**
+     * The number of entries kept, if not given otherwise
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Map<String, Service> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache
+     * @param capacity the maximal number of entries
+     */
+    public SegmentServiceCache(final int capacity) {
+        this.entries = new LinkedHashMap<String, Service>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Service> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the leftover service of a segment, which is computed, if it
+     * is not in the cache.
+     * @param segment the vertices of the segment in the order of traversal
+     * @param crossArrivals the arrivals of the cross-flows at the first
+     * vertex, indexed by their flow-id. They are subtracted in this order.
+     * @param nw the network new Hoelder parameters are drawn from
+     * @return the leftover service
+     */
+    public Service getLeftover(List<Vertex> segment, SortedMap<Integer, Arrival> crossArrivals, Network nw) {
+        List<Integer> vertexIDs = new ArrayList<>(segment.size());
+        List<Service> services = new ArrayList<>(segment.size());
+        for (Vertex vertex : segment) {
+            vertexIDs.add(vertex.getID());
+            services.add(vertex.getService());
+        }
+        NetworkFingerprint fingerprint = new NetworkFingerprint(services, new ArrayList<>(crossArrivals.values()));
+        if (!fingerprint.isExact()) {
+            return computeLeftover(segment, crossArrivals, nw);
+        }
+        String key = vertexIDs + "-" + crossArrivals.keySet() + "\n" + fingerprint.getCanonicalForm();
+
+        synchronized (this) {
+            Service service = entries.get(key);
+            if (service != null) {
+                hits++;
+                return service;
+            }
+            misses++;
+        }
+        Service service = computeLeftover(segment, crossArrivals, nw);
+        if (service.getSigma().getParameters().isEmpty() && service.getRho().getParameters().isEmpty()) {
+            synchronized (this) {
+                entries.put(key, service);
+            }
+        }
+        return service;
+    }
+
+    /**
+     * Computes the leftover service of a segment without consulting a
+     * cache, see {@link #getLeftover(List, SortedMap, Network)}.
+     * @param segment the vertices of the segment in the order of traversal
+     * @param crossArrivals the arrivals of the cross-flows at the first
+     * vertex, indexed by their flow-id
+     * @param nw the network new Hoelder parameters are drawn from
+     * @return the leftover service
+     */
+    public static Service computeLeftover(List<Vertex> segment, SortedMap<Integer, Arrival> crossArrivals, Network nw) {
+        Service service = segment.get(0).getService();
+        for (Vertex vertex : segment.subList(1, segment.size())) {
+            service = new Service(nw).concatenate(service, vertex.getService());
+        }
+        for (Arrival arrival : crossArrivals.values()) {
+            service = new Service(nw).leftover(arrival, service);
+        }
+        return service;
+    }
+
+    /**
+     * Removes all entries
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     *
+     * @return the number of lookups, which were answered by the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     *
+     * @return the number of lookups, which were not answered by the cache
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
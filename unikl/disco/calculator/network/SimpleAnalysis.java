@@ -18,6 +18,7 @@
  */
 package unikl.disco.calculator.network;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
 
@@ -93,13 +94,7 @@ public class SimpleAnalysis extends AbstractAnalysis {
 	@Override
 	public Arrival analyze() throws ArrivalNotAvailableException, DeadlockException, BadInitializationException{
 		
-		//Initializes the stack of vertices, for which all arrivals are known
-		for(Map.Entry<Integer, Vertex> entry : vertices.entrySet()){
-			if(entry.getValue().canServe()) 	analyzableVertices.push(entry.getValue());
-		}
-		
-		//Checks if the can_serve-stack is empty
-		if(analyzableVertices.isEmpty()) throw new DeadlockException("The initial vertex stack is empty.");
+		initializeStack();
 		
 		Vertex current_vertex;
 		Arrival bound = new Arrival(nw);
@@ -111,15 +106,6 @@ public class SimpleAnalysis extends AbstractAnalysis {
 			current_vertex = analyzableVertices.pop();
 			System.out.println("vertex "+current_vertex.getID()+" popped");
 			int flowID = current_vertex.calculatePriority();
-			Vertex next_vertex;
-
-			//There might be no next vertex
-			try{
-				next_vertex = vertices.get(flows.get(flowID).getNextVertexID());
-			}
-			catch (IndexOutOfBoundsException e){
-				next_vertex = null;
-			}
 			
 			//Checks if the current vertex and flow are SoI and FoI respectively
 			if(current_vertex.getID() == vertex_of_interest && flowID == flow_of_interest){
@@ -130,33 +116,7 @@ public class SimpleAnalysis extends AbstractAnalysis {
 				break;
 			}
 			
-			//Calculates the output and sets the service in the vertex to the next leftover service
-			Arrival output = current_vertex.serve();
-			if(current_vertex.getAlias() != null) System.out.println("Flow with id "+flowID+" served at node "+current_vertex.getAlias());	
-			else System.out.println("Flow with id "+flowID+" served at node "+current_vertex.getID());
-			//There might be no next vertex
-			try{
-				flows.get(flowID).learnArrival(output);
-			}
-			catch (IndexOutOfBoundsException e){
-			
-			//There might be no next vertex
-			}
-			try{
-				next_vertex.learnArrival(flowID, output);
-				
-				//pushes the next vertex if it knows all its arrivals
-				if(next_vertex.canServe()) {
-					analyzableVertices.push(next_vertex);
-					System.out.println("Node "+next_vertex.getID()+" knows its arrivals and is pushed");
-					}
-			}
-			catch (NullPointerException e){
-				
-			}
-			
-			//pushes the current vertex if it has more flows to serve
-			if(current_vertex.canServe()){ analyzableVertices.push(current_vertex); System.out.println("Vertex "+current_vertex.getID()+" pushed");}
+			serve(current_vertex, flowID);
 		}
 		
 		//checks if the FoI and SoI had been calculated
@@ -165,6 +125,130 @@ public class SimpleAnalysis extends AbstractAnalysis {
 		return bound;
 	}
 	
+	/**
+	 * Analyzes the whole network in a single pass. Instead of 
+	 * stopping at the FoI and SoI, every flow is served at every
+	 * vertex of its route and the bound of the flow at the vertex 
+	 * is calculated right before it is served. Hence, the output-
+	 * and leftover-service-bounds of upstream vertices are shared
+	 * by all bounds. The flow and vertex of interest given to the
+	 * constructor are ignored.
+	 * @param lastHopsOnly if true, the bound of each flow is only
+	 * calculated at the last vertex of its route
+	 * @return the bounds in {@link Arrival}-representation, indexed
+	 * by flow-id and vertex-id
+	 * @throws ArrivalNotAvailableException
+	 * @throws DeadlockException
+	 * @throws BadInitializationException
+	 */
+	public Map<Integer, Map<Integer, Arrival>> analyzeAllFlows(boolean lastHopsOnly) throws ArrivalNotAvailableException, DeadlockException, BadInitializationException{
+		
+		initializeStack();
+		
+		Map<Integer, Map<Integer, Arrival>> bounds = new HashMap<>();
+		for(Integer flowID : flows.keySet()){
+			bounds.put(flowID, new HashMap<Integer, Arrival>());
+		}
+		
+		//Serves all flows at all vertices
+		while(!analyzableVertices.isEmpty()){
+			Vertex current_vertex = analyzableVertices.pop();
+			int flowID = current_vertex.calculatePriority();
+			Flow flow = flows.get(flowID);
+			
+			//The served vertices are removed from the route, so the last vertex is the only one left
+			if(!lastHopsOnly || flow.getVerticeIDs().size() == 1){
+				bounds.get(flowID).put(current_vertex.getID(), calculateBound(flow.getLastArrival(), current_vertex.getService()));
+			}
+			
+			serve(current_vertex, flowID);
+		}
+		
+		//checks if all flows had been served everywhere
+		for(Vertex vertex : vertices.values()){
+			if(!vertex.getAllFlowPriorities().isEmpty()) throw new DeadlockException("Not all flows can be served at vertex "+vertex.getID()+". Non-Feed-Forward-Network?");
+		}
+		
+		return bounds;
+	}
+	
+	/**
+	 * Initializes the stack of vertices, for which all arrivals are
+	 * known. Beforehand, the network is checked to be feed-forward,
+	 * so that cyclic networks are rejected before any symbolic work.
+	 * @throws CyclicDependencyException if the network is not 
+	 * feed-forward
+	 * @throws DeadlockException if no such vertex exists
+	 */
+	private void initializeStack() throws DeadlockException{
+		new VertexDependencyGraph(vertices, flows).verifyFeedForward();
+		
+		analyzableVertices.clear();
+		for(Map.Entry<Integer, Vertex> entry : vertices.entrySet()){
+			if(entry.getValue().canServe()) 	analyzableVertices.push(entry.getValue());
+		}
+		
+		//Checks if the can_serve-stack is empty
+		if(analyzableVertices.isEmpty()) throw new DeadlockException("The initial vertex stack is empty.");
+	}
+	
+	/**
+	 * Serves the given flow at the vertex, hands its output to the next
+	 * vertex on the route and pushes all vertices, which can serve 
+	 * afterwards.
+	 * @param current_vertex the vertex, which serves
+	 * @param flowID the id of the prioritized flow at this vertex
+	 * @throws ArrivalNotAvailableException
+	 */
+	private void serve(Vertex current_vertex, int flowID) throws ArrivalNotAvailableException{
+		Vertex next_vertex = forward(current_vertex, flowID);
+		
+		//pushes the next vertex if it knows all its arrivals
+		if(next_vertex != null && next_vertex.canServe()) {
+			analyzableVertices.push(next_vertex);
+			System.out.println("Node "+next_vertex.getID()+" knows its arrivals and is pushed");
+		}
+		
+		//pushes the current vertex if it has more flows to serve
+		if(current_vertex.canServe()){ analyzableVertices.push(current_vertex); System.out.println("Vertex "+current_vertex.getID()+" pushed");}
+	}
+	
+	/**
+	 * Serves the given flow at the vertex and hands its output to the
+	 * flow and to the next vertex on its route.
+	 * @param current_vertex the vertex, which serves
+	 * @param flowID the id of the prioritized flow at this vertex
+	 * @return the next vertex on the route of the flow, null if there
+	 * is none
+	 * @throws ArrivalNotAvailableException
+	 */
+	protected Vertex forward(Vertex current_vertex, int flowID) throws ArrivalNotAvailableException{
+		Vertex next_vertex;
+		
+		//There might be no next vertex
+		try{
+			next_vertex = vertices.get(flows.get(flowID).getNextVertexID());
+		}
+		catch (IndexOutOfBoundsException e){
+			next_vertex = null;
+		}
+		
+		//Calculates the output and sets the service in the vertex to the next leftover service
+		Arrival output = current_vertex.serve();
+		if(current_vertex.getAlias() != null) System.out.println("Flow with id "+flowID+" served at node "+current_vertex.getAlias());	
+		else System.out.println("Flow with id "+flowID+" served at node "+current_vertex.getID());
+		//There might be no next vertex
+		try{
+			flows.get(flowID).learnArrival(output);
+		}
+		catch (IndexOutOfBoundsException e){
+		
+		//There might be no next vertex
+		}
+		if(next_vertex != null) next_vertex.learnArrival(flowID, output);
+		return next_vertex;
+	}
+	
 	/**
 	 * Helper function for {@link analysis()}. It takes the FoI and
 	 * SoI and calculated the performance bound. Stochastic 
@@ -175,7 +259,7 @@ public class SimpleAnalysis extends AbstractAnalysis {
 	 * @return the bound in the {@link Arrival}-description
 	 * @throws BadInitializationException
 	 */
-	private Arrival calculateBound(Arrival arrival, Service service) throws BadInitializationException{
+	protected Arrival calculateBound(Arrival arrival, Service service) throws BadInitializationException{
             
 		Arrival result;
 		
@@ -186,7 +270,7 @@ public class SimpleAnalysis extends AbstractAnalysis {
 			SymbolicFunction preparation;
 			
 			//Dependent Case
-			if(!SetUtils.getIntersection(arrival.getServicedependencies(),service.getServicedependencies()).isEmpty() || !SetUtils.getIntersection(service.getArrivaldependencies(), arrival.getArrivaldependencies()).isEmpty()){
+			if(SetUtils.intersects(arrival.getServicedependencies(), service.getServicedependencies()) || SetUtils.intersects(service.getArrivaldependencies(), arrival.getArrivaldependencies())){
 				Hoelder hoelder = nw.createHoelder();
 				preparation = new AdditiveComposition(new AdditiveComposition(arrival.getSigma(),service.getSigma(),hoelder), 
 						new BFunction(new AdditiveComposition(arrival.getRho(),service.getRho(),hoelder)));
@@ -219,7 +303,7 @@ public class SimpleAnalysis extends AbstractAnalysis {
 			System.out.println("Arrival dependencies of SoI:"+service.getArrivaldependencies().toString());*/
 			
 			//Dependent Case
-			if(!SetUtils.getIntersection(arrival.getServicedependencies(),service.getServicedependencies()).isEmpty() || !SetUtils.getIntersection(service.getArrivaldependencies(), arrival.getArrivaldependencies()).isEmpty()){
+			if(SetUtils.intersects(arrival.getServicedependencies(), service.getServicedependencies()) || SetUtils.intersects(service.getArrivaldependencies(), arrival.getArrivaldependencies())){
 				Hoelder hoelder = nw.createHoelder();
 				SymbolicFunction prep1 = new AdditiveComposition(arrival.getSigma(),service.getSigma(),hoelder);
 				SymbolicFunction prep2 = new AdditiveComposition(arrival.getRho(),service.getRho(),hoelder);
@@ -247,7 +331,7 @@ public class SimpleAnalysis extends AbstractAnalysis {
 			SymbolicFunction givenrho;
 			
 			//Dependent Case
-			if(!SetUtils.getIntersection(arrival.getServicedependencies(),service.getServicedependencies()).isEmpty() || !SetUtils.getIntersection(service.getArrivaldependencies(), arrival.getArrivaldependencies()).isEmpty()){
+			if(SetUtils.intersects(arrival.getServicedependencies(), service.getServicedependencies()) || SetUtils.intersects(service.getArrivaldependencies(), arrival.getArrivaldependencies())){
 				Hoelder hoelder = nw.createHoelder();
 				givensigma = new AdditiveComposition(new AdditiveComposition(arrival.getSigma(),service.getSigma(),hoelder),new BFunction(new AdditiveComposition(arrival.getRho(),service.getRho(),hoelder)));
 				givenrho = new scaledFunction(arrival.getRho(),hoelder, false);
@@ -18,13 +18,59 @@
  */
 package unikl.disco.calculator.network;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import unikl.disco.calculator.optimization.BoundFactory;
+import unikl.disco.calculator.optimization.BoundType;
+import unikl.disco.calculator.optimization.Optimizable;
+import unikl.disco.calculator.optimization.OptimizationFactory;
+import unikl.disco.calculator.optimization.OptimizationType;
+import unikl.disco.calculator.optimization.Optimizer;
 import unikl.disco.calculator.symbolic_math.Arrival;
 import unikl.disco.calculator.symbolic_math.BadInitializationException;
+import unikl.disco.calculator.symbolic_math.ParameterMismatchException;
+import unikl.disco.calculator.symbolic_math.ServerOverloadException;
+import unikl.disco.calculator.symbolic_math.SymbolicFunction;
+import unikl.disco.calculator.symbolic_math.ThetaOutOfBoundException;
+import unikl.disco.misc.AnalysisException;
 
 /**
- *
+ * Explores the different ways to compute an end-to-end bound for a flow
+ * of interest (FoI). In every state of the network two kinds of
+ * operations on the path of the FoI are possible: Subtracting the
+ * prioritized cross flow at a vertex (i.e. serving it) and convoluting
+ * two neighbouring vertices, which are only traversed by the FoI. In
+ * every state the remaining network can be analyzed hop-by-hop by a
+ * {@link SimpleAnalysis}, which yields the bound of that plan.
+ * The resulting decision tree is explored in parallel by a
+ * {@link ForkJoinPool}, every branch working on its own copy of the
+ * network. Different orders of operations often lead to the same
+ * network, hence every state is identified by its
+ * {@link NetworkFingerprint} and explored only once.
+ * When searching for the best plan, the search can optionally be
+ * run as branch-and-bound: Every state is first given an optimistic
+ * estimate by analyzing a relaxed copy of it, in which all cross flows
+ * are removed. States whose estimate can't beat the best bound found
+ * so far are not explored any further. As the estimate is optimized
+ * numerically, this is a heuristic.
+ * The states share their arrivals, and with them the Hoelder
+ * parameters, with all states derived from them. Since the optimizer
+ * sets the Hoelder parameters of the bound it works on, every bound is
+ * copied before it is optimized.
  * @author Sebastian Henningsen
  */
 public class SimpleEndToEndConvolutor {
@@ -39,74 +85,512 @@ public class SimpleEndToEndConvolutor {
         this.flowOfInterest = flowOfInterest;
     }
     
-    // Yields a tree of recursions
-
     /**
-     *
-     * @param operations
-     * @param vertex1ID
-     * @param vertex2ID
-     * @param nw
-     * @return
+     * Computes the delay bounds of all plans, which can be formed by
+     * operating on the vertices between <code>vertex1ID</code> and
+     * <code>vertex2ID</code> on the path of the FoI.
+     * @param operations The operations, which have already been performed
+     * @param vertex1ID The first vertex of the path segment
+     * @param vertex2ID The last vertex of the path segment
+     * @param nw The network, which is left untouched
+     * @return One state for each plan
      */
-        public List<ConvolutionState> computeAllConvolutions(String operations, int vertex1ID, int vertex2ID, Network nw) {
-        // For every node on path: 
-        // Convolute with right neighbour and apply recursion
-        // And subtract flows (if any) and apply recursion
-        // Base Case: One Node -> Subtract all flows and return Arrival bound
-        List<ConvolutionState> results = new ArrayList<>();
-        Arrival bound = null;
+    public List<ConvolutionState> computeAllConvolutions(String operations, int vertex1ID, int vertex2ID, Network nw) {
+        SearchNode root = new SearchNode(nw.detachedCopy(), "", getSegment(nw, vertex1ID, vertex2ID));
+        Map<String, EnumerationTask> memo = new ConcurrentHashMap<>();
+        List<Plan> plans;
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            plans = pool.invoke(new EnumerationTask(root, memo));
+        } finally {
+            pool.shutdown();
+        }
+        List<ConvolutionState> results = new ArrayList<>(plans.size());
+        for (Plan plan : plans) {
+            results.add(new ConvolutionState(plan.describe(operations, plan.steps.size()), plan.bound));
+        }
+        return results;
+    }
         
-        if(nw.getVertices().size() >= 2) {
-            // Get route of FoI
-            List<Integer> route = flowOfInterest.getVerticeIDs();
-            for(int i = 0, j = 1;j < route.size() - 1;i++, j++) {
-                // Convolution
-                Network convNetwork = nw.deepCopy();
-                
-                
-                int newID = convNetwork.convolute(route.get(i), route.get(j), flowOfInterest.getID());
-                vertex1ID = vertex1ID == i || vertex1ID == j ? newID : vertex1ID;
-                vertex2ID = vertex2ID == i || vertex1ID == j ? newID : vertex2ID;
-
-                results.addAll(computeAllConvolutions(operations + "convolute " + convNetwork.getVertex(i).getAlias() 
-                        + " (" + i + "), " + convNetwork.getVertex(j).getAlias() + " (" + j + ")", vertex1ID, vertex2ID, convNetwork));
-                
-                // Subtract
-                Network subtNetwork = nw.deepCopy();
-                Vertex current = subtNetwork.getVertex(i);
-                if(current.getPrioritizedFlow() != flowOfInterest.getID()) {
-                    try {
-                        current.serve();
-                    } catch (ArrivalNotAvailableException ex) {
-                        ex.printStackTrace();
-                    }
-                    results.addAll(computeAllConvolutions(operations + "subtract " + subtNetwork.getFlow(i).getAlias() 
-                        + " (" + i + ")", vertex1ID, vertex2ID, subtNetwork));
+    /**
+     * Searches the plan with the best optimized bound. The search starts
+     * several threads, each plan is optimized with the given
+     * parameters.
+     * @param vertex1ID The first vertex of the path segment
+     * @param vertex2ID The last vertex of the path segment
+     * @param nw The network, which is left untouched
+     * @param thetaGran The granularity of the theta search
+     * @param hoelderGran The granularity of the Hoelder search
+     * @param optAlgorithm The optimization algorithm for every plan
+     * @param boundType The type of the bound
+     * @param value The bound value or violation probability
+     * @return The states from the initial network to the best plan.
+     * Every state carries the best value reachable from it, the last
+     * one the resulting bound.
+     */
+    public List<ConvolutionState> findBestConvolution(int vertex1ID, int vertex2ID, Network nw, double thetaGran, double hoelderGran,
+            OptimizationType optAlgorithm, BoundType boundType, double value) {
+        return findBestConvolution(vertex1ID, vertex2ID, nw, thetaGran, hoelderGran, optAlgorithm, boundType, value, false);
+    }
+
+    /**
+     * Searches the plan with the best optimized bound. If
+     * <code>pruning</code> is set, the search prunes all states, whose
+     * optimistic estimate is not better than the best plan found so far.
+     * The estimate of a state is the best bound of the FoI over all ways
+     * to convolute the segment, after all cross flows have been removed
+     * from the state. As cross flows can only diminish the service
+     * available to the FoI, the estimate would be a lower bound of every
+     * plan below the state, if the optimization were exact. Since it is
+     * obtained by the same numerical optimization as the plans themselves,
+     * pruning is a heuristic, which may miss the best plan.
+     * @param vertex1ID The first vertex of the path segment
+     * @param vertex2ID The last vertex of the path segment
+     * @param nw The network, which is left untouched
+     * @param thetaGran The granularity of the theta search
+     * @param hoelderGran The granularity of the Hoelder search
+     * @param optAlgorithm The optimization algorithm for every plan
+     * @param boundType The type of the bound
+     * @param value The bound value or violation probability
+     * @param pruning Whether states are pruned by their estimate
+     * @return The states from the initial network to the best plan.
+     * Every state carries the best value reachable from it, the last
+     * one the resulting bound.
+     */
+    public List<ConvolutionState> findBestConvolution(int vertex1ID, int vertex2ID, Network nw, double thetaGran, double hoelderGran,
+            OptimizationType optAlgorithm, BoundType boundType, double value, boolean pruning) {
+        //Backlog values are represented by negative values in the arrival representation
+        if (boundType == BoundType.BACKLOG && value > 0) {
+            value = -value;
+        }
+        Search search = new Search(thetaGran, hoelderGran, optAlgorithm, boundType, value, pruning);
+        SearchNode root = new SearchNode(nw.detachedCopy(), "", getSegment(nw, vertex1ID, vertex2ID));
+        Plan best;
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            best = pool.invoke(new OptimizationTask(root, search));
+        } finally {
+            pool.shutdown();
+        }
+        List<ConvolutionState> history = new ArrayList<>(best.steps.size() + 2);
+        for (int i = 0; i <= best.steps.size(); i++) {
+            history.add(new ConvolutionState(best.describe("", i), null, best.value));
+        }
+        history.add(new ConvolutionState(best.describe("", best.steps.size()) + (best.steps.isEmpty() ? "" : "; ") + "analyze",
+                best.bound, best.value));
+        return history;
+    }
+
+    private Set<Integer> getSegment(Network nw, int vertex1ID, int vertex2ID) {
+        List<Integer> route = nw.getFlow(flowOfInterest.getID()).getVerticeIDs();
+        int first = route.indexOf(vertex1ID);
+        int last = route.indexOf(vertex2ID);
+        if (first < 0 || last < 0 || first > last) {
+            throw new AnalysisException("Vertices " + vertex1ID + " and " + vertex2ID + " do not span a segment of the flow of interest.");
+        }
+        return new HashSet<>(route.subList(first, last + 1));
+    }
+
+    /**
+     * Creates all states, which can be reached by a single operation
+     */
+    private List<SearchNode> expand(SearchNode node) {
+        List<SearchNode> children = new ArrayList<>();
+        int foiID = flowOfInterest.getID();
+        List<Integer> route = new ArrayList<>(node.nw.getFlow(foiID).getVerticeIDs());
+        for (int i = 0; i < route.size(); i++) {
+            int vertexID = route.get(i);
+            if (!node.segment.contains(vertexID)) {
+                continue;
+            }
+            Vertex vertex = node.nw.getVertex(vertexID);
+
+            // Subtraction of the prioritized cross flow
+            int crossFlowID = vertex.getPrioritizedFlow();
+            if (crossFlowID != foiID && vertex.getArrivalOfFlow(crossFlowID) != null) {
+                Network subtNetwork = node.nw.snapshot();
+                subtract(subtNetwork, vertexID);
+                String operation = "subtract " + subtNetwork.getFlow(crossFlowID).getAlias() + " (" + crossFlowID + ") at "
+                        + vertex.getAlias() + " (" + vertexID + ")";
+                children.add(new SearchNode(subtNetwork, operation, node.segment));
+            }
+
+            // Convolution with the next vertex
+            if (i + 1 < route.size() && node.segment.contains(route.get(i + 1))
+                    && isExclusive(vertex) && isExclusive(node.nw.getVertex(route.get(i + 1)))) {
+                Network convNetwork = node.nw.snapshot();
+                Vertex next = convNetwork.getVertex(route.get(i + 1));
+                int newID = convNetwork.convolute(vertexID, next.getID(), foiID);
+                Set<Integer> segment = new HashSet<>(node.segment);
+                segment.remove(vertexID);
+                segment.remove(next.getID());
+                segment.add(newID);
+                String operation = "convolute " + vertex.getAlias() + " (" + vertexID + "), " + next.getAlias() + " (" + next.getID() + ")";
+                children.add(new SearchNode(convNetwork, operation, segment));
+            }
+        }
+        return children;
+    }
+
+    private boolean isExclusive(Vertex vertex) {
+        Set<Integer> flowIDs = vertex.getAllFlowPriorities().keySet();
+        return flowIDs.size() == 1 && flowIDs.contains(flowOfInterest.getID());
+    }
+
+    /**
+     * Serves the prioritized flow at the given vertex and hands its output
+     * to the next vertex on the flow's path.
+     */
+    private void subtract(Network nw, int vertexID) {
+        Vertex vertex = nw.getVertex(vertexID);
+        Flow flow = nw.getFlow(vertex.getPrioritizedFlow());
+        Vertex next = nw.getVertex(flow.getNextVertexID());
+        try {
+            Arrival output = vertex.serve();
+            flow.learnArrival(output);
+            if (next != null) {
+                next.learnArrival(flow.getID(), output);
+            }
+        } catch (ArrivalNotAvailableException e) {
+            throw new AnalysisException(e);
+        }
+    }
+
+    /**
+     * Analyzes the remaining network hop-by-hop
+     * @return The bound at the last vertex of the FoI, null if it can't be computed
+     */
+    private Arrival analyze(SearchNode node, AbstractAnalysis.Boundtype boundtype) {
+        Network nw = node.nw.snapshot();
+        List<Integer> route = nw.getFlow(flowOfInterest.getID()).getVerticeIDs();
+        Analyzer analyzer = AnalysisFactory.getAnalyzer(AnalysisType.SIMPLE_ANA, nw, nw.getVertices(), nw.getFlows(),
+                flowOfInterest.getID(), route.get(route.size() - 1), boundtype);
+        try {
+            return analyzer.analyze();
+        } catch (ArrivalNotAvailableException | DeadlockException | BadInitializationException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Computes the optimistic estimate of a state, i.e. the best
+     * optimized bound of the FoI after all cross flows have been removed.
+     * Without cross flows only convolutions remain, hence the FoI is
+     * analyzed for every partition of the segment into convoluted runs of
+     * neighbouring vertices, since concatenating services is not always
+     * beneficial.
+     */
+    private double estimate(SearchNode node, Search search) {
+        int foiID = flowOfInterest.getID();
+        Network relaxed = node.nw.snapshot();
+        for (Flow flow : new ArrayList<>(relaxed.getFlows().values())) {
+            if (flow.getID() != foiID) {
+                relaxed.removeFlow(flow);
+            }
+        }
+        SearchNode hopByHop = new SearchNode(relaxed, "", node.segment);
+        String key = hopByHop.getKey();
+        Double known = search.estimates.get(key);
+        if (known != null) {
+            return known;
+        }
+        double estimate = search.optimize(analyze(hopByHop, search.getAnalysisBoundtype()));
+
+        // The pairs of neighbouring vertices, which may be convoluted
+        List<Integer> route = new ArrayList<>(relaxed.getFlow(foiID).getVerticeIDs());
+        List<Integer> pairs = new ArrayList<>();
+        for (int i = 0; i + 1 < route.size(); i++) {
+            if (node.segment.contains(route.get(i)) && node.segment.contains(route.get(i + 1))) {
+                pairs.add(i);
+            }
+        }
+        // Every subset of these pairs yields one partition, the empty one is the hop-by-hop analysis
+        for (long mask = 1; mask < (1L << pairs.size()); mask++) {
+            Network convNetwork = relaxed.snapshot();
+            Set<Integer> segment = new HashSet<>(node.segment);
+            int merged = -1;
+            int lastPair = -2;
+            for (int j = 0; j < pairs.size(); j++) {
+                if ((mask & (1L << j)) == 0) {
+                    continue;
+                }
+                int i = pairs.get(j);
+                int vertexID = (lastPair == i - 1) ? merged : route.get(i);
+                int nextID = route.get(i + 1);
+                segment.remove(vertexID);
+                segment.remove(nextID);
+                merged = convNetwork.convolute(vertexID, nextID, foiID);
+                segment.add(merged);
+                lastPair = i;
+            }
+            estimate = Math.min(estimate, search.optimize(analyze(new SearchNode(convNetwork, "", segment), search.getAnalysisBoundtype())));
+        }
+        search.estimates.put(key, estimate);
+        return estimate;
+    }
+
+    /**
+     * A state of the search, consisting of the network after the operations
+     * performed so far and the IDs of the vertices, which may be operated on.
+     */
+    private static class SearchNode {
+
+        final Network nw;
+        final String operation;
+        final Set<Integer> segment;
+
+        /**
+         * @param nw The network in this state
+         * @param operation The operation, which led to this state
+         * @param segment The vertices, which may be operated on
+         */
+        SearchNode(Network nw, String operation, Set<Integer> segment) {
+            this.nw = nw;
+            this.operation = operation;
+            this.segment = segment;
+        }
+
+        /**
+         * Identifies the state independently of the operations leading to it
+         */
+        String getKey() {
+            return new NetworkFingerprint(nw).getDigest() + new TreeSet<>(segment);
+        }
+    }
+
+    /**
+     * The operations leading from a state to a bound. Plans are relative
+     * to the state they were computed for, such that they can be shared
+     * by all paths reaching that state.
+     */
+    private static class Plan {
+
+        final List<String> steps;
+        final Arrival bound;
+        final double value;
+
+        Plan(List<String> steps, Arrival bound, double value) {
+            this.steps = steps;
+            this.bound = bound;
+            this.value = value;
+        }
+
+        Plan prepend(String operation) {
+            List<String> newSteps = new ArrayList<>(steps.size() + 1);
+            newSteps.add(operation);
+            newSteps.addAll(steps);
+            return new Plan(newSteps, bound, value);
+        }
+
+        /**
+         * Joins the given prefix and the first <code>count</code> steps
+         */
+        String describe(String prefix, int count) {
+            StringBuilder description = new StringBuilder(prefix);
+            for (int i = 0; i < count; i++) {
+                if (description.length() > 0) {
+                    description.append("; ");
                 }
+                description.append(steps.get(i));
             }
-        } else {
-            // Only one node in network
-            results = new ArrayList<>();
-            
-            Analyzer analyzer = AnalysisFactory.getAnalyzer(AnalysisType.SIMPLE_ANA, nw, nw.getVertices(), nw.getFlows(), flowOfInterest.getID(), vertex1ID, AbstractAnalysis.Boundtype.DELAY);
+            return description.toString();
+        }
+    }
+
+    /**
+     * The parameters of an optimizing search
+     */
+    private static class Search {
+
+        final double thetaGran;
+        final double hoelderGran;
+        final OptimizationType optAlgorithm;
+        final BoundType boundType;
+        final double value;
+        final boolean pruning;
+        final Map<String, OptimizationTask> memo = new ConcurrentHashMap<>();
+        final Map<String, Double> estimates = new ConcurrentHashMap<>();
+        // The value of the best plan found so far, stored as raw long bits
+        private final AtomicLong incumbent = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+
+        Search(double thetaGran, double hoelderGran, OptimizationType optAlgorithm, BoundType boundType, double value, boolean pruning) {
+            this.thetaGran = thetaGran;
+            this.hoelderGran = hoelderGran;
+            this.optAlgorithm = optAlgorithm;
+            this.boundType = boundType;
+            this.value = value;
+            this.pruning = pruning;
+        }
+
+        double getIncumbent() {
+            return Double.longBitsToDouble(incumbent.get());
+        }
+
+        /**
+         * Lowers the incumbent to the given value, if it is better
+         */
+        void offer(double candidate) {
+            long current = incumbent.get();
+            while (candidate < Double.longBitsToDouble(current)
+                    && !incumbent.compareAndSet(current, Double.doubleToLongBits(candidate))) {
+                current = incumbent.get();
+            }
+        }
+
+        AbstractAnalysis.Boundtype getAnalysisBoundtype() {
+            if (boundType == BoundType.BACKLOG || boundType == BoundType.INVERSE_BACKLOG) {
+                return AbstractAnalysis.Boundtype.BACKLOG;
+            } else {
+                return AbstractAnalysis.Boundtype.DELAY;
+            }
+        }
+
+        /**
+         * Optimizes a copy of the given bound, a bound, which could not be
+         * computed is represented by positive infinity.
+         */
+        double optimize(Arrival arrival) {
+            if (arrival == null) {
+                return Double.POSITIVE_INFINITY;
+            }
+            Optimizable bound = BoundFactory.createBound(isolate(arrival), boundType, value);
+            Optimizer optimizer = OptimizationFactory.getOptimizer(bound, getAnalysisBoundtype(), optAlgorithm);
+            double result;
             try {
-                bound = analyzer.analyze();
-            } catch (    ArrivalNotAvailableException | DeadlockException | BadInitializationException ex) {
-                ex.printStackTrace();
+                result = optimizer.minimize(thetaGran, hoelderGran);
+            } catch (ThetaOutOfBoundException | ParameterMismatchException | ServerOverloadException | AnalysisException e) {
+                result = Double.POSITIVE_INFINITY;
             }
+            return Double.isNaN(result) ? Double.POSITIVE_INFINITY : result;
         }
-        results.add(new ConvolutionState(operations, bound));
-        return results;
 
-      }
-        
-    // Starts new threads and finds the best result
+        /**
+         * Copies sigma and rho of a bound in one go, such that Hoelder
+         * parameters occurring in both are still shared by the copies.
+         * The original is only read, it is never optimized itself.
+         */
+        private Arrival isolate(Arrival arrival) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(arrival.getSigma());
+                out.writeObject(arrival.getRho());
+            } catch (IOException e) {
+                throw new AnalysisException(e);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                // The copy is only optimized and never combined with other expressions, hence it needs no network
+                Arrival copy = new Arrival((SymbolicFunction) in.readObject(), (SymbolicFunction) in.readObject(), null);
+                copy.addArrivalDependency(arrival.getArrivaldependencies());
+                copy.addServiceDependency(arrival.getServicedependencies());
+                return copy;
+            } catch (IOException | ClassNotFoundException e) {
+                throw new AnalysisException(e);
+            }
+        }
+    }
 
     /**
-     *
+     * Collects the delay bounds of all plans below a state
      */
-        public void findBestConvolution() {
-        
+    private class EnumerationTask extends RecursiveTask<List<Plan>> {
+
+        private static final long serialVersionUID = -2740419167236518353L;
+        private final SearchNode node;
+        private final Map<String, EnumerationTask> memo;
+
+        EnumerationTask(SearchNode node, Map<String, EnumerationTask> memo) {
+            this.node = node;
+            this.memo = memo;
+        }
+
+        @Override
+        protected List<Plan> compute() {
+            List<SearchNode> children = expand(node);
+            List<EnumerationTask> subtasks = new ArrayList<>(children.size());
+            for (SearchNode child : children) {
+                EnumerationTask subtask = new EnumerationTask(child, memo);
+                EnumerationTask known = memo.putIfAbsent(child.getKey(), subtask);
+                if (known == null) {
+                    subtask.fork();
+                } else {
+                    subtask = known;
+                }
+                subtasks.add(subtask);
+            }
+
+            List<Plan> results = new ArrayList<>();
+            results.add(new Plan(Collections.<String>emptyList(), analyze(node, AbstractAnalysis.Boundtype.DELAY), Double.NaN));
+            for (int i = 0; i < subtasks.size(); i++) {
+                for (Plan plan : subtasks.get(i).join()) {
+                    results.add(plan.prepend(children.get(i).operation));
+                }
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Finds the best plan below a state
+     */
+    private class OptimizationTask extends RecursiveTask<Plan> {
+
+        private static final long serialVersionUID = 8416271003517426904L;
+        private final SearchNode node;
+        private final Search search;
+
+        OptimizationTask(SearchNode node, Search search) {
+            this.node = node;
+            this.search = search;
+        }
+
+        @Override
+        protected Plan compute() {
+            // No estimate is needed as long as nothing can be pruned
+            if (search.pruning && search.getIncumbent() < Double.POSITIVE_INFINITY
+                    && estimate(node, search) >= search.getIncumbent()) {
+                return new Plan(Collections.<String>emptyList(), null, Double.POSITIVE_INFINITY);
+            }
+
+            // When pruning, the own plan is evaluated first to tighten the incumbent for the children
+            Plan best = null;
+            if (search.pruning) {
+                best = analyzeNode();
+            }
+
+            List<SearchNode> children = expand(node);
+            List<OptimizationTask> subtasks = new ArrayList<>(children.size());
+            for (SearchNode child : children) {
+                OptimizationTask subtask = new OptimizationTask(child, search);
+                OptimizationTask known = search.memo.putIfAbsent(child.getKey(), subtask);
+                if (known == null) {
+                    subtask.fork();
+                } else {
+                    subtask = known;
+                }
+                subtasks.add(subtask);
+            }
+
+            if (best == null) {
+                best = analyzeNode();
+            }
+
+            for (int i = 0; i < subtasks.size(); i++) {
+                Plan result = subtasks.get(i).join();
+                if (result.value < best.value) {
+                    best = result.prepend(children.get(i).operation);
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Analyzing the current state hop-by-hop is a plan on its own
+         */
+        private Plan analyzeNode() {
+            Arrival bound = analyze(node, search.getAnalysisBoundtype());
+            Plan plan = new Plan(Collections.<String>emptyList(), bound, search.optimize(bound));
+            search.offer(plan.value);
+            return plan;
+        }
     }
 }
@@ -0,0 +1,296 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import unikl.disco.calculator.symbolic_math.ParameterMismatchException;
+import unikl.disco.calculator.symbolic_math.ServerOverloadException;
+import unikl.disco.calculator.symbolic_math.SymbolicFunction;
+import unikl.disco.calculator.symbolic_math.ThetaOutOfBoundException;
+
+/**
+ * Checks the stability of a network before it is analyzed. The mean rates
+ * of all flows traversing a vertex are summed up and compared to the
+ * mean rate of its service. A vertex with a utilization of at least one is
+ * overloaded, every bound depending on it is infinite. Without this check
+ * the overload surfaces only during the optimization as a
+ * {@link ServerOverloadException}, after the network has been analyzed.
+ * The mean rates are the rhos of the arrivals and services for theta
+ * approaching zero. Since the rhos are non-decreasing in theta, the
+ * utilizations are slightly overestimated. The check takes linear time in
+ * the size of the network.
+ * An overloaded vertex does not necessarily render every bound depending
+ * on it infinite: A flow, which is served before the flows causing the
+ * overload, still receives enough leftover service. Hence, the bound of a
+ * flow is only rejected, if the flows served before or together with it,
+ * or with any flow it depends on, overload a vertex, see
+ * {@link #verifyStable(int, int)}.
+ * @author Sebastian Henningsen
+ */
+public class UtilizationAnalyzer {
+
+    /**
+     * The utilization, from which on a vertex is considered to be near
+     * saturation, if not given otherwise
+     */
+    public static final double DEFAULT_SATURATION_THRESHOLD = 0.9;
+    // The theta the rhos are evaluated at
+    private static final double THETA = 1e-6;
+
+    private final Network nw;
+    private final Map<Integer, Double> flowRates;
+    private final Map<Integer, Double> serviceRates;
+    private final Map<Integer, Double> loads;
+    private final Map<Integer, Double> utilizations;
+
+    /**
+     * Computes the utilizations of all vertices of the current state of
+     * the network.
+     * @param nw the network
+     */
+    public UtilizationAnalyzer(Network nw) {
+        this.nw = nw;
+        Map<Integer, Double> load = new HashMap<>();
+        flowRates = new HashMap<>();
+        serviceRates = new HashMap<>();
+        for (Flow flow : nw.getFlowView().values()) {
+            if (flow.getVerticeIDs().isEmpty()) {
+                continue;
+            }
+            // Stable vertices preserve the mean rate of a flow
+            double rate = meanRate(flow.getInitialArrival().getRho());
+            flowRates.put(flow.getID(), rate);
+            for (Integer vertexID : flow.getVerticeIDs()) {
+                Double sum = load.get(vertexID);
+                load.put(vertexID, (sum == null ? 0 : sum) + rate);
+            }
+        }
+        loads = new TreeMap<>();
+        utilizations = new TreeMap<>();
+        for (Vertex vertex : nw.getVertexView().values()) {
+            Double sum = load.get(vertex.getID());
+            double rate = -meanRate(vertex.getService().getRho());
+            serviceRates.put(vertex.getID(), rate);
+            loads.put(vertex.getID(), sum == null ? 0 : sum);
+            utilizations.put(vertex.getID(), sum == null ? 0 : sum / rate);
+        }
+    }
+
+    private static double meanRate(SymbolicFunction rho) {
+        try {
+            return rho.getValue(THETA, rho.getParameters());
+        } catch (ThetaOutOfBoundException | ParameterMismatchException | ServerOverloadException e) {
+            // The rate can't be determined, hence the vertex is not judged
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Returns the utilization of a vertex, i.e. the sum of the mean rates
+     * of its flows divided by its mean service rate.
+     * @param vertexID the ID of the vertex
+     * @return the utilization, which is NaN if a rate can't be determined
+     */
+    public double getUtilization(int vertexID) {
+        Double utilization = utilizations.get(vertexID);
+        return utilization != null ? utilization : Double.NaN;
+    }
+
+    /**
+     * Returns the load of a vertex, i.e. the sum of the mean rates of its
+     * flows. A vertex is stable, if its mean service rate exceeds the load.
+     * @param vertexID the ID of the vertex
+     * @return the load, which is NaN if a rate can't be determined
+     */
+    public double getLoad(int vertexID) {
+        Double load = loads.get(vertexID);
+        return load != null ? load : Double.NaN;
+    }
+
+    /**
+     *
+     * @return the utilizations of all vertices, indexed by their IDs
+     */
+    public Map<Integer, Double> getUtilizations() {
+        return Collections.unmodifiableMap(utilizations);
+    }
+
+    /**
+     *
+     * @return the IDs of the vertices with a utilization of at least one
+     */
+    public Set<Integer> getOverloadedVertices() {
+        return getVertices(1, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Returns the vertices, which are stable, but near saturation.
+     * @param threshold the utilization from which on a vertex is near
+     * saturation
+     * @return the IDs of the vertices with a utilization of at least the
+     * threshold, but less than one
+     */
+    public Set<Integer> getSaturatedVertices(double threshold) {
+        return getVertices(threshold, 1);
+    }
+
+    private Set<Integer> getVertices(double from, double to) {
+        Set<Integer> result = new TreeSet<>();
+        for (Map.Entry<Integer, Double> entry : utilizations.entrySet()) {
+            if (entry.getValue() >= from && (entry.getValue() < to || to == Double.POSITIVE_INFINITY)) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     *
+     * @return true, if no vertex is overloaded
+     */
+    public boolean isStable() {
+        return getOverloadedVertices().isEmpty();
+    }
+
+    /**
+     * Returns the loads, which the bound of a flow at a vertex depends on.
+     * The flow of interest receives the leftover service of the flows,
+     * which are served before it, i.e. the ones with a higher priority.
+     * Flows with the same priority are counted, too, as their order is
+     * arbitrary. The arrivals of all these flows in turn depend on the
+     * leftover services at their previous hops.
+     * @param flowID the ID of the flow of interest
+     * @param vertexID the ID of the vertex of interest
+     * @return for every vertex the bound depends on, the largest sum of
+     * the mean rates of a flow of interest and the flows served before it
+     */
+    public Map<Integer, Double> getRelevantLoads(int flowID, int vertexID) {
+        Map<Integer, Double> relevant = new TreeMap<>();
+        Map<Integer, Set<Integer>> visited = new HashMap<>();
+        Deque<int[]> pending = new ArrayDeque<>();
+        pending.push(new int[]{flowID, vertexID});
+        while (!pending.isEmpty()) {
+            int[] current = pending.pop();
+            Set<Integer> flowsAtVertex = visited.get(current[1]);
+            if (flowsAtVertex == null) {
+                flowsAtVertex = new HashSet<>();
+                visited.put(current[1], flowsAtVertex);
+            }
+            Vertex vertex = nw.getVertexView().get(current[1]);
+            if (!flowsAtVertex.add(current[0]) || vertex == null) {
+                continue;
+            }
+            Map<Integer, Integer> priorities = vertex.getAllFlowPriorities();
+            Integer priority = priorities.get(current[0]);
+            if (priority == null) {
+                continue;
+            }
+            double load = 0;
+            for (Map.Entry<Integer, Integer> entry : priorities.entrySet()) {
+                if (entry.getValue() >= priority) {
+                    Double rate = flowRates.get(entry.getKey());
+                    load += (rate != null) ? rate : Double.NaN;
+                    pending.push(new int[]{entry.getKey(), current[1]});
+                }
+            }
+            Double known = relevant.get(current[1]);
+            relevant.put(current[1], known == null || load > known ? load : known);
+
+            // The arrival at this vertex is the output of the previous hop
+            Flow flow = nw.getFlowView().get(current[0]);
+            List<Integer> route = (flow != null) ? flow.getVerticeIDs() : Collections.<Integer>emptyList();
+            int position = route.indexOf(current[1]);
+            if (position > 0) {
+                pending.push(new int[]{current[0], route.get(position - 1)});
+            }
+        }
+        return relevant;
+    }
+
+    /**
+     * Checks, whether the bound of a flow at a vertex is finite, i.e. no
+     * vertex is overloaded by the flows the bound depends on, see
+     * {@link #getRelevantLoads(int, int)}.
+     * @param flowID the ID of the flow of interest
+     * @param vertexID the ID of the vertex of interest
+     * @throws ServerOverloadException if a relevant vertex is overloaded,
+     * the message lists the overloaded vertices and the utilizations
+     * caused by the relevant flows
+     */
+    public void verifyStable(int flowID, int vertexID) throws ServerOverloadException {
+        if (getOverloadedVertices().isEmpty()) {
+            return;
+        }
+        // Only now the more expensive dependencies are determined
+        Map<Integer, Double> overloaded = new TreeMap<>();
+        for (Map.Entry<Integer, Double> entry : getRelevantLoads(flowID, vertexID).entrySet()) {
+            Double rate = serviceRates.get(entry.getKey());
+            if (rate != null && entry.getValue() >= rate) {
+                overloaded.put(entry.getKey(), entry.getValue() / rate);
+            }
+        }
+        if (!overloaded.isEmpty()) {
+            throw new ServerOverloadException("The bound of flow " + flowID + " at vertex " + vertexID
+                    + " depends on overloaded vertices: " + describe(overloaded));
+        }
+    }
+
+    private String describe(Set<Integer> vertexIDs) {
+        Map<Integer, Double> selected = new TreeMap<>();
+        for (Integer vertexID : vertexIDs) {
+            selected.put(vertexID, utilizations.get(vertexID));
+        }
+        return describe(selected);
+    }
+
+    private String describe(Map<Integer, Double> vertexUtilizations) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Integer, Double> entry : vertexUtilizations.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            Vertex vertex = nw.getVertexView().get(entry.getKey());
+            builder.append(vertex != null && !vertex.getAlias().isEmpty() ? vertex.getAlias() : String.valueOf(entry.getKey()))
+                    .append(String.format(" (%.1f%%)", 100 * entry.getValue()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns a report of the overloaded vertices and the ones near
+     * saturation, see {@link #DEFAULT_SATURATION_THRESHOLD}.
+     * @return
+     */
+    @Override
+    public String toString() {
+        Set<Integer> overloaded = getOverloadedVertices();
+        Set<Integer> saturated = getSaturatedVertices(DEFAULT_SATURATION_THRESHOLD);
+        return "Overloaded vertices: " + (overloaded.isEmpty() ? "none" : describe(overloaded))
+                + "\nVertices near saturation: " + (saturated.isEmpty() ? "none" : describe(saturated));
+    }
+}
@@ -19,10 +19,12 @@
 package unikl.disco.calculator.network;
 
 import java.io.Serializable;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
 
 import unikl.disco.calculator.symbolic_math.Arrival;
 import unikl.disco.calculator.gui.Displayable;
@@ -36,6 +38,9 @@ import unikl.disco.calculator.symbolic_math.Service;
  * arriving at the node and their priorities. The latter contains
  * all flows, for which an arrival description is given. Further 
  * the vertex can determine, which flow is the next to serve.
+ * The flows are kept in a queue ordered by descending priority and,
+ * for equal priorities, by ascending flow-id, so that determining
+ * the next flow after serving or removing one takes logarithmic time.
  * The most important method in this class is <code>serve()</code>.
  * It is called to calculate the leftover service of this node, 
  * after serving the current flow (in expression the flow, which
@@ -57,6 +62,7 @@ public class Vertex implements Serializable, Displayable {
 	private Service service;
 	private int prioritizedFlowID;
 	private Map<Integer, Integer> priorities;
+	private TreeSet<Integer> queue;
 	private int highest_priority;
 	private Map<Integer, Arrival> incoming;
         private Network nw;
@@ -75,6 +81,7 @@ public class Vertex implements Serializable, Displayable {
 		prioritizedFlowID = 0;
 		highest_priority = 0;
 		priorities = new HashMap<>();
+		queue = new TreeSet<>(new PriorityOrder(priorities));
 		incoming = new HashMap<>();
 		this.ID = vertex_ID;
 		service.addServiceDependency(vertex_ID);
@@ -96,6 +103,7 @@ public class Vertex implements Serializable, Displayable {
 		prioritizedFlowID = 0;
 		highest_priority = 0;
 		priorities = new HashMap<>();
+		queue = new TreeSet<>(new PriorityOrder(priorities));
 		incoming = new HashMap<>();
 		this.ID = vertex_ID;
 		service.addServiceDependency(vertex_ID);
@@ -111,16 +119,10 @@ public class Vertex implements Serializable, Displayable {
 	 * @param flow_id the flow-id to which this arrival belongs
 	 * @param arrival the arrival bound
 	 */
-	public void addArrival(int priority, int flow_id, Arrival arrival){
+	public synchronized void addArrival(int priority, int flow_id, Arrival arrival){
 		
-		priorities.put(flow_id, priority);
+		enqueue(flow_id, priority);
 		incoming.put(flow_id, arrival);
-		
-		//Checks for a change in the highest priority
-		if(priority > highest_priority){
-			prioritizedFlowID = flow_id;
-			highest_priority = priority;
-		}
 	}
 	
 	/**
@@ -128,23 +130,41 @@ public class Vertex implements Serializable, Displayable {
 	 * @param priority the priority of the arrival
 	 * @param flow_id the flow-id to which the arrival belongs
 	 */
-	public void addUnknownArrival(int priority, int flow_id){
+	public synchronized void addUnknownArrival(int priority, int flow_id){
+		enqueue(flow_id, priority);
+	}
+	
+	//Inserts or re-prioritizes a flow and checks for a change in the highest priority
+	private void enqueue(int flow_id, int priority){
+		//The flow has to leave the queue before its priority changes, the order depends on it
+		dequeue(flow_id);
 		priorities.put(flow_id, priority);
-		if(priority > highest_priority){
-			prioritizedFlowID = flow_id;
-			highest_priority = priority;
-		}
+		queue.add(flow_id);
+		updatePrioritizedFlow();
+	}
+	
+	private void dequeue(int flow_id){
+		//The order is only defined for flows with a priority
+		if(priorities.containsKey(flow_id)) queue.remove(flow_id);
+		priorities.remove(flow_id);
+	}
+	
+	private void updatePrioritizedFlow(){
+		prioritizedFlowID = calculatePriority();
+		highest_priority = prioritizedFlowID > 0 ? priorities.get(prioritizedFlowID) : 0;
 	}
 	
 	/**
 	 * Changes a (non-established) arrival to an established 
 	 * arrival. If the arrival was already established before, it is
-	 * overwritten by this method.
+	 * overwritten by this method. The methods altering the arrivals
+	 * are synchronized, since the upstream vertices of a 
+	 * {@link ParallelAnalysis} hand over their outputs concurrently.
 	 * @param flow_id the flow-id to which the arrival belongs
 	 * @param arrival the arrival bound
 	 * @throws ArrivalNotAvailableException
 	 */
-	public void learnArrival(int flow_id, Arrival arrival) throws ArrivalNotAvailableException{
+	public synchronized void learnArrival(int flow_id, Arrival arrival) throws ArrivalNotAvailableException{
 
 		if(priorities.containsKey(flow_id)){
 			incoming.put(flow_id, arrival);
@@ -172,7 +192,7 @@ public class Vertex implements Serializable, Displayable {
 	 * @return the output bound
 	 * @throws ArrivalNotAvailableException
 	 */
-	public Arrival serve() throws ArrivalNotAvailableException{
+	public synchronized Arrival serve() throws ArrivalNotAvailableException{
 		//TODO: Removing this check seems to break "Simple Analysis"?
 		//Checks if non-established arrivals exist (number of priority entries larger > arrival entries)
 /*		
@@ -184,10 +204,11 @@ public class Vertex implements Serializable, Displayable {
  */
 			//Calculates the output-bound
 			Arrival arrival = incoming.get(prioritizedFlowID);
-			Arrival output = arrival.output(arrival, service);
+			//New Hoelder parameters are drawn from this vertex' network, not the ones the operands stem from
+			Arrival output = new Arrival(nw).output(arrival, service);
 			
 			//Calculates the leftover service		
-			service = service.leftover(arrival, service);
+			service = new Service(nw).leftover(arrival, service);
 			
                         // Remove this vertex from the flow
                         Flow f = nw.getFlow(prioritizedFlowID);
@@ -200,14 +221,13 @@ public class Vertex implements Serializable, Displayable {
                         f.removeVertex(this.ID);
                         
 			//Removes the served flow from the arrival-list
-			priorities.remove(prioritizedFlowID);
+			dequeue(prioritizedFlowID);
 			incoming.remove(prioritizedFlowID);
 			
 			//System.out.println("Flow with flow_id "+prioritizedFlowID+" and priority "+highest_priority+" served at node "+vertex_ID);
 			
 			//Determines the next flow to serve
-			prioritizedFlowID = calculatePriority();
-			if(prioritizedFlowID > 0)	highest_priority = priorities.get(prioritizedFlowID);
+			updatePrioritizedFlow();
 			
 			//Returns the output-bound
 			return output;
@@ -215,19 +235,15 @@ public class Vertex implements Serializable, Displayable {
 //	}
 
 	/**
-	 * Determines which flow has the highest priority.
-	 * @return the flow-id of the flow with the highest priority
+	 * Determines which flow has the highest priority. Among flows
+	 * with the same priority the one with the lowest flow-id is 
+	 * chosen. Only positive priorities are taken into account.
+	 * @return the flow-id of the flow with the highest priority or
+	 * 0, if there is no such flow
 	 */
-	public int calculatePriority(){
-		int high = 0;
-		int higher_priority_id =0;
-		for(Map.Entry<Integer,Integer> entry : priorities.entrySet()){
-			if(high < entry.getValue()){
-				higher_priority_id = entry.getKey();
-				high = entry.getValue();
-			}
-		}
-		return higher_priority_id;
+	public synchronized int calculatePriority(){
+		if(queue.isEmpty() || priorities.get(queue.first()) <= 0) return 0;
+		return queue.first();
 	}
         
     /**
@@ -242,7 +258,7 @@ public class Vertex implements Serializable, Displayable {
 	 * Determines if there is at least one non-established flow
      * @return true, if there are only established flows and at least one non-established flow, false otherwise
 	 */
-	public boolean canServe(){
+	public synchronized boolean canServe(){
             return !priorities.isEmpty() && priorities.size()==incoming.size();
 	}
 	
@@ -254,11 +270,10 @@ public class Vertex implements Serializable, Displayable {
 	 * priority.
 	 * @param id the id of the flow to be removed.
 	 */
-	public void removeFlow(int id){
-		priorities.remove(id);
+	public synchronized void removeFlow(int id){
+		dequeue(id);
 		incoming.remove(id);
-		prioritizedFlowID = calculatePriority();
-		if(prioritizedFlowID > 0)	highest_priority = priorities.get(prioritizedFlowID);
+		updatePrioritizedFlow();
 		
 	}
      	
@@ -270,6 +285,16 @@ public class Vertex implements Serializable, Displayable {
      */
     	
 	public Vertex copy(){
+		return copy(nw);
+	}
+	
+	/**
+	 * Copies this vertex into another network. The service object
+	 * is shared, since services are never altered, but replaced.
+	 * @param nw the network the copy belongs to
+	 * @return
+	 */
+	public Vertex copy(Network nw){
 		Vertex copy = new Vertex(ID, service, alias, nw);
 		for(Entry<Integer, Integer> entry : priorities.entrySet()){
 			if(incoming.containsKey(entry.getKey())) copy.addArrival(entry.getValue(), entry.getKey(), incoming.get(entry.getKey()));
@@ -355,4 +380,24 @@ public class Vertex implements Serializable, Displayable {
         public String toString() {
             return (this.alias != null ? this.alias : String.valueOf(this.ID));
         }
+    
+	/**
+	 * Orders flow-ids by descending priority at this vertex, ties are
+	 * broken by ascending flow-id.
+	 */
+	private static class PriorityOrder implements Comparator<Integer>, Serializable {
+		
+		private static final long serialVersionUID = 3518442017390126218L;
+		private final Map<Integer, Integer> priorities;
+		
+		PriorityOrder(Map<Integer, Integer> priorities){
+			this.priorities = priorities;
+		}
+		
+		@Override
+		public int compare(Integer flow1, Integer flow2){
+			int byPriority = Integer.compare(priorities.get(flow2), priorities.get(flow1));
+			return byPriority != 0 ? byPriority : Integer.compare(flow1, flow2);
+		}
+	}
 }
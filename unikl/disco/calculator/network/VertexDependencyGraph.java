@@ -0,0 +1,220 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.network;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.alg.StrongConnectivityInspector;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.traverse.TopologicalOrderIterator;
+
+/**
+ * The dependencies between the vertices of a network, which are induced
+ * by the flows: A vertex depends on another one, if some flow traverses
+ * the latter directly before the former. In a feed-forward network
+ * these dependencies form a directed acyclic graph, whose wavefronts
+ * (i.e. the vertices with equal distance to the sources of the graph)
+ * can be served independently of each other.
+ * A network, whose dependencies contain a cycle, can't be analyzed. This
+ * is detected by {@link #verifyFeedForward()} in linear time, before any
+ * symbolic computation takes place.
+ * @author Sebastian Henningsen
+ * @see ParallelAnalysis
+ */
+public class VertexDependencyGraph {
+
+    private final DirectedGraph<Integer, DefaultEdge> graph;
+    // The flows inducing each edge
+    private final Map<DefaultEdge, Set<Integer>> edgeFlows = new HashMap<>();
+
+    /**
+     * Builds the graph from the remaining routes of the flows
+     * @param vertices the vertices of the network
+     * @param flows the flows of the network
+     */
+    public VertexDependencyGraph(Map<Integer, Vertex> vertices, Map<Integer, Flow> flows) {
+        graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        for (Integer vertexID : vertices.keySet()) {
+            graph.addVertex(vertexID);
+        }
+        for (Flow flow : flows.values()) {
+            List<Integer> route = flow.getVerticeIDs();
+            for (int i = 0; i + 1 < route.size(); i++) {
+                graph.addVertex(route.get(i));
+                graph.addVertex(route.get(i + 1));
+                DefaultEdge edge = graph.addEdge(route.get(i), route.get(i + 1));
+                if (edge == null) {
+                    edge = graph.getEdge(route.get(i), route.get(i + 1));
+                } else {
+                    edgeFlows.put(edge, new TreeSet<Integer>());
+                }
+                edgeFlows.get(edge).add(flow.getID());
+            }
+        }
+    }
+
+    /**
+     * Checks whether the network is feed-forward, i.e. whether the
+     * dependencies between its vertices are acyclic. This takes time
+     * linear in the number of vertices and hops.
+     * @throws CyclicDependencyException if there is a cycle, reporting
+     * the cycle through the lowest vertex ID found on any cycle
+     */
+    public void verifyFeedForward() throws CyclicDependencyException {
+        List<Integer> cycle = findCycle();
+        if (!cycle.isEmpty()) {
+            throw new CyclicDependencyException(cycle, getFlowsAlong(cycle));
+        }
+    }
+
+    /**
+     * Searches a cycle in the dependencies. The strongly connected
+     * components are determined first, the cycle is then searched
+     * within the component containing the lowest vertex ID on a cycle.
+     * @return the IDs of the vertices along a shortest cycle through this
+     * vertex, or an empty list if the network is feed-forward
+     */
+    public List<Integer> findCycle() {
+        Set<Integer> component = null;
+        int start = Integer.MAX_VALUE;
+        for (Set<Integer> candidate : new StrongConnectivityInspector<>(graph).stronglyConnectedSets()) {
+            int lowest = Collections.min(candidate);
+            boolean cyclic = candidate.size() > 1 || graph.containsEdge(lowest, lowest);
+            if (cyclic && lowest < start) {
+                component = candidate;
+                start = lowest;
+            }
+        }
+        if (component == null) {
+            return new ArrayList<>();
+        }
+
+        // Breadth-first search within the component for the shortest way back to the start
+        Map<Integer, Integer> predecessors = new HashMap<>();
+        Deque<Integer> open = new ArrayDeque<>();
+        open.add(start);
+        Integer last = null;
+        while (last == null) {
+            Integer current = open.poll();
+            for (DefaultEdge edge : graph.outgoingEdgesOf(current)) {
+                Integer target = graph.getEdgeTarget(edge);
+                if (target == start) {
+                    last = current;
+                    break;
+                }
+                if (component.contains(target) && !predecessors.containsKey(target)) {
+                    predecessors.put(target, current);
+                    open.add(target);
+                }
+            }
+        }
+        List<Integer> cycle = new ArrayList<>();
+        for (Integer vertexID = last; vertexID != start; vertexID = predecessors.get(vertexID)) {
+            cycle.add(vertexID);
+        }
+        cycle.add(start);
+        Collections.reverse(cycle);
+        return cycle;
+    }
+
+    /**
+     * Determines the flows, which traverse at least one edge of a cycle
+     * @param cycle the IDs of the vertices along the cycle
+     * @return the IDs of the flows
+     */
+    public Set<Integer> getFlowsAlong(List<Integer> cycle) {
+        Set<Integer> flowIDs = new TreeSet<>();
+        for (int i = 0; i < cycle.size(); i++) {
+            DefaultEdge edge = graph.getEdge(cycle.get(i), cycle.get((i + 1) % cycle.size()));
+            if (edge != null) {
+                flowIDs.addAll(edgeFlows.get(edge));
+            }
+        }
+        return flowIDs;
+    }
+
+    /**
+     * Sorts the vertices into wavefronts. Every vertex belongs to the
+     * wavefront given by the length of the longest path leading to it,
+     * hence all vertices it depends on are found in earlier wavefronts.
+     * @return the wavefronts in the order they have to be served
+     * @throws CyclicDependencyException if the network is not feed-forward
+     */
+    public List<List<Integer>> getWavefronts() throws CyclicDependencyException {
+        verifyFeedForward();
+        Map<Integer, Integer> levels = new HashMap<>();
+        List<List<Integer>> wavefronts = new ArrayList<>();
+        TopologicalOrderIterator<Integer, DefaultEdge> iterator = new TopologicalOrderIterator<>(graph);
+        while (iterator.hasNext()) {
+            Integer vertexID = iterator.next();
+            int level = 0;
+            for (DefaultEdge edge : graph.incomingEdgesOf(vertexID)) {
+                level = Math.max(level, levels.get(graph.getEdgeSource(edge)) + 1);
+            }
+            levels.put(vertexID, level);
+            while (wavefronts.size() <= level) {
+                wavefronts.add(new ArrayList<Integer>());
+            }
+            wavefronts.get(level).add(vertexID);
+        }
+        return wavefronts;
+    }
+
+    /**
+     * Determines the vertices the given one depends on, directly or
+     * indirectly.
+     * @param vertexID the ID of the vertex
+     * @return the IDs of the vertices, including the given one
+     */
+    public Set<Integer> getAncestors(int vertexID) {
+        Set<Integer> ancestors = new HashSet<>();
+        Deque<Integer> open = new ArrayDeque<>();
+        if (graph.containsVertex(vertexID)) {
+            ancestors.add(vertexID);
+            open.push(vertexID);
+        }
+        while (!open.isEmpty()) {
+            for (DefaultEdge edge : graph.incomingEdgesOf(open.pop())) {
+                Integer source = graph.getEdgeSource(edge);
+                if (ancestors.add(source)) {
+                    open.push(source);
+                }
+            }
+        }
+        return ancestors;
+    }
+
+    /**
+     *
+     * @return the underlying graph of vertex IDs
+     */
+    public DirectedGraph<Integer, DefaultEdge> getGraph() {
+        return graph;
+    }
+}
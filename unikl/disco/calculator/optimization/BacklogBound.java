@@ -18,6 +18,7 @@
  */
 package unikl.disco.calculator.optimization;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import unikl.disco.calculator.symbolic_math.Arrival;
@@ -71,9 +72,11 @@ public class BacklogBound implements Optimizable {
      */
     @Override
     public void prepare() {
-        // Remove the parameter that represents the backlog from the other Hoelder parameters
-        allHoelders.get(allHoelders.size()).setPValue(bound);
-	allHoelders.remove(allHoelders.size());
+        // Remove the parameter that represents the backlog from the other Hoelder parameters,
+        // it is created last and hence has the highest ID of the bound
+        int backlogID = Collections.max(allHoelders.keySet());
+        allHoelders.get(backlogID).setPValue(bound);
+        allHoelders.remove(backlogID);
     }
 
     /**
@@ -93,5 +96,14 @@ public class BacklogBound implements Optimizable {
     public double getMaximumTheta() {
         return input.getThetastar();
     }
+
+    /**
+     *
+     * @return
+     */
+    @Override
+    public Arrival getInput() {
+        return input;
+    }
     
 }
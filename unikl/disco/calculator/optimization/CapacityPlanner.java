@@ -0,0 +1,193 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.optimization;
+
+import java.util.Map;
+import java.util.Set;
+import unikl.disco.calculator.SNC;
+import unikl.disco.calculator.network.AnalysisPlan;
+import unikl.disco.calculator.network.AnalysisType;
+import unikl.disco.calculator.network.Flow;
+import unikl.disco.calculator.network.Network;
+import unikl.disco.calculator.network.UtilizationAnalyzer;
+import unikl.disco.calculator.network.Vertex;
+import unikl.disco.calculator.symbolic_math.BadInitializationException;
+import unikl.disco.calculator.symbolic_math.ParameterMismatchException;
+import unikl.disco.calculator.symbolic_math.ServerOverloadException;
+import unikl.disco.calculator.symbolic_math.ServiceFactory;
+import unikl.disco.misc.AnalysisException;
+
+/**
+ * Determines the minimal service rate, with which a flow meets a target,
+ * e.g. which rate is needed such that the delay of a flow exceeds some
+ * value with a probability of at most 1e-6. The services of the given
+ * vertices are replaced by constant rate servers of the same rate. A rate
+ * is feasible, if the optimized bound (see
+ * {@link SNC#optimizeSymbolicFunction}) does not exceed the target. The
+ * rate is searched by bisection, starting from the stability limit of the
+ * vertices. The network is analyzed once, every step only binds the rate
+ * to an {@link AnalysisPlan} and optimizes the bound again. The search
+ * assumes, that the bound does not increase with the rate. Instances are
+ * not thread-safe.
+ * 
+ * @author Sebastian Henningsen
+ */
+public class CapacityPlanner {
+
+    /**
+     * The maximal number of times the upper end of the search interval is
+     * doubled, before the target is considered to be unreachable
+     */
+    public static final int MAX_EXPANSIONS = 64;
+
+    private final Network nw;
+    private final Flow flow;
+    private final Vertex vertex;
+    private final AnalysisType analysisType;
+    private final OptimizationType optAlgorithm;
+    private final BoundType boundType;
+    private final double value;
+    private final double thetaGran;
+    private final double hoelderGran;
+
+    private AnalysisPlan plan;
+    private int evaluations;
+
+    /**
+     * Creates a planner for the bound of a flow at a vertex.
+     * @param nw the network, it is not altered
+     * @param flow the flow of interest
+     * @param vertex the vertex of interest
+     * @param analysisType the analysis, see {@link AnalysisPlan}
+     * @param optAlgorithm the optimization algorithm
+     * @param boundType the type of bound, the target refers to the
+     * optimized value, i.e. a violation probability for backlog and delay
+     * bounds and a backlog or delay for the inverse bounds
+     * @param value the bound value or violation probability, see
+     * {@link SNC#optimizeSymbolicFunction}
+     * @param thetaGran the granularity of the theta-parameter
+     * @param hoelderGran the granularity of the Hoelder parameters
+     */
+    public CapacityPlanner(Network nw, Flow flow, Vertex vertex, AnalysisType analysisType, OptimizationType optAlgorithm,
+            BoundType boundType, double value, double thetaGran, double hoelderGran) {
+        this.nw = nw;
+        this.flow = flow;
+        this.vertex = vertex;
+        this.analysisType = analysisType;
+        this.optAlgorithm = optAlgorithm;
+        this.boundType = boundType;
+        this.value = value;
+        this.thetaGran = thetaGran;
+        this.hoelderGran = hoelderGran;
+    }
+
+    /**
+     * Searches the minimal rate of the given vertices, with which the
+     * optimized bound does not exceed the target.
+     * @param vertexIDs the ids of the vertices, which get the rate
+     * @param target the maximal value of the optimized bound
+     * @param tolerance the relative precision of the rate, e.g. 0.001
+     * @return a feasible rate, which is less than <code>1 + tolerance
+     * </code> times the minimal feasible rate
+     * @throws AnalysisException if the target can't be met by these
+     * vertices, e.g. since another vertex is overloaded
+     */
+    public double findMinimalRate(Set<Integer> vertexIDs, double target, double tolerance) {
+        if (vertexIDs.isEmpty()) {
+            throw new AnalysisException("There are no vertices to be dimensioned.");
+        }
+        if (!(tolerance > 0)) {
+            throw new AnalysisException("The tolerance must be positive, but is " + tolerance + ".");
+        }
+        if (plan == null) {
+            plan = SNC.getInstance().planAnalysis(flow, vertex, analysisType, SNC.getInstance().convertBoundTypes(boundType), nw);
+        } else {
+            plan.reset();
+        }
+        evaluations = 0;
+
+        // Rates up to the load the bound depends on are infeasible, since the vertex is overloaded for the flow of interest
+        Map<Integer, Double> loads = new UtilizationAnalyzer(plan.getNetwork()).getRelevantLoads(flow.getID(), vertex.getID());
+        double lower = 0;
+        for (Integer vertexID : vertexIDs) {
+            Double load = loads.get(vertexID);
+            lower = Math.max(lower, load != null ? load : 0);
+        }
+        if (Double.isNaN(lower)) {
+            throw new AnalysisException("The load of the vertices " + vertexIDs + " cannot be determined.");
+        }
+        double upper = lower > 0 ? 2 * lower : 1;
+
+        // Other overloaded vertices can't be compensated by these vertices
+        bind(vertexIDs, upper);
+        try {
+            new UtilizationAnalyzer(plan.getNetwork()).verifyStable(flow.getID(), vertex.getID());
+        } catch (ServerOverloadException e) {
+            throw new AnalysisException(e);
+        }
+
+        int expansions = 0;
+        while (!isFeasible(vertexIDs, upper, target)) {
+            if (++expansions > MAX_EXPANSIONS) {
+                throw new AnalysisException("The target " + target + " cannot be met with a rate up to " + upper + ".");
+            }
+            lower = upper;
+            upper *= 2;
+        }
+        while (upper - lower > tolerance * upper) {
+            double middle = (lower + upper) / 2;
+            if (isFeasible(vertexIDs, middle, target)) {
+                upper = middle;
+            } else {
+                lower = middle;
+            }
+        }
+        return upper;
+    }
+
+    private boolean isFeasible(Set<Integer> vertexIDs, double rate, double target) {
+        bind(vertexIDs, rate);
+        evaluations++;
+        try {
+            return SNC.getInstance().optimizePlan(plan, thetaGran, hoelderGran, optAlgorithm, boundType, value) <= target;
+        } catch (AnalysisException e) {
+            // The bound can't be computed, e.g. since the vertices are too close to saturation
+            return false;
+        }
+    }
+
+    private void bind(Set<Integer> vertexIDs, double rate) {
+        try {
+            for (Integer vertexID : vertexIDs) {
+                // Service rates are represented by negative values
+                plan.bindService(vertexID, ServiceFactory.buildConstantRate(-rate));
+            }
+        } catch (BadInitializationException | ParameterMismatchException e) {
+            throw new AnalysisException(e);
+        }
+    }
+
+    /**
+     *
+     * @return the number of optimized bounds during the last search
+     */
+    public int getNumberOfEvaluations() {
+        return evaluations;
+    }
+}
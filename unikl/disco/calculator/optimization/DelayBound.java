@@ -88,5 +88,14 @@ public class DelayBound implements Optimizable {
     public double getMaximumTheta() {
         return input.getThetastar();
     }
+
+    /**
+     *
+     * @return
+     */
+    @Override
+    public Arrival getInput() {
+        return input;
+    }
     
 }
@@ -0,0 +1,236 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.optimization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.ComposedFunction;
+import unikl.disco.calculator.symbolic_math.Hoelder;
+import unikl.disco.calculator.symbolic_math.SymbolicFunction;
+
+/**
+ * Analyzes the expression trees of an {@link Arrival} w.r.t. the
+ * Hoelder parameters occuring in it. A Hoelder parameter only affects
+ * the subtree below the node, which introduced it. Hence a parameter
+ * introduced inside such a subtree is nested in the enclosing one,
+ * while parameters of disjoint subtrees are independent of each other.
+ * The result is a forest, in which the children of a node are the
+ * parameters nested (directly) in the node's parameter. Parameters,
+ * which are nested in more than one other parameter (e.g. due to
+ * shared subexpressions) are lifted to the top level.
+ * 
+ * @author Sebastian Henningsen
+ */
+public class HoelderDecomposition {
+
+    private static final int ROOT = 0;
+
+    private final List<Node> roots;
+    private final Map<Integer, Node> nodes;
+
+    /**
+     * Decomposes the sigma- and rho-expressions of <code>input</code>
+     * w.r.t. the given parameters. Hoelder parameters not contained in
+     * <code>parameters</code> are treated as fixed.
+     * @param input The arrival whose expressions are analyzed
+     * @param parameters The Hoelder parameters, which are to be optimized
+     */
+    public HoelderDecomposition(Arrival input, Map<Integer, Hoelder> parameters) {
+        Map<Integer, Set<Integer>> enclosing = new HashMap<>();
+        Map<SymbolicFunction, Set<Integer>> visited = new IdentityHashMap<>();
+        collect(input.getSigma(), ROOT, parameters, enclosing, visited);
+        collect(input.getRho(), ROOT, parameters, enclosing, visited);
+
+        nodes = new HashMap<>();
+        for (Map.Entry<Integer, Hoelder> entry : parameters.entrySet()) {
+            nodes.put(entry.getKey(), new Node(entry.getValue()));
+        }
+
+        // Links every parameter to its unique enclosing parameter (if any)
+        Map<Integer, Integer> parent = new HashMap<>();
+        for (Integer id : nodes.keySet()) {
+            Set<Integer> enclosingIDs = enclosing.get(id);
+            if (enclosingIDs != null && enclosingIDs.size() == 1 && !enclosingIDs.contains(ROOT)) {
+                parent.put(id, enclosingIDs.iterator().next());
+            } else {
+                parent.put(id, ROOT);
+            }
+        }
+        // Breaks up cyclic nestings, which can occur if subexpressions are shared
+        for (Integer id : nodes.keySet()) {
+            Set<Integer> path = new HashSet<>();
+            int current = id;
+            while (current != ROOT && path.add(current)) {
+                current = parent.get(current);
+            }
+            if (current != ROOT) {
+                parent.put(current, ROOT);
+            }
+        }
+
+        roots = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : parent.entrySet()) {
+            Node node = nodes.get(entry.getKey());
+            if (entry.getValue() == ROOT) {
+                roots.add(node);
+            } else {
+                nodes.get(entry.getValue()).children.add(node);
+            }
+        }
+        sort(roots);
+        for (Node node : nodes.values()) {
+            sort(node.children);
+        }
+    }
+
+    private static void collect(SymbolicFunction function, int enclosingID, Map<Integer, Hoelder> parameters,
+            Map<Integer, Set<Integer>> enclosing, Map<SymbolicFunction, Set<Integer>> visited) {
+        Set<Integer> seen = visited.get(function);
+        if (seen == null) {
+            seen = new HashSet<>();
+            visited.put(function, seen);
+        }
+        if (!seen.add(enclosingID) || !(function instanceof ComposedFunction)) {
+            return;
+        }
+        ComposedFunction composed = (ComposedFunction) function;
+        int next = enclosingID;
+        Hoelder hoelder = composed.getHoelder();
+        if (hoelder != null && parameters.containsKey(hoelder.getHoelderID())) {
+            next = hoelder.getHoelderID();
+            Set<Integer> enclosingIDs = enclosing.get(next);
+            if (enclosingIDs == null) {
+                enclosingIDs = new HashSet<>();
+                enclosing.put(next, enclosingIDs);
+            }
+            enclosingIDs.add(enclosingID);
+        }
+        for (SymbolicFunction component : composed.getComponents()) {
+            collect(component, next, parameters, enclosing, visited);
+        }
+    }
+
+    private static void sort(List<Node> list) {
+        Collections.sort(list, new Comparator<Node>() {
+            @Override
+            public int compare(Node n1, Node n2) {
+                return Integer.compare(n1.getHoelder().getHoelderID(), n2.getHoelder().getHoelderID());
+            }
+        });
+    }
+
+    /**
+     * Returns the top-level parameters, which are mutually independent
+     * @return
+     */
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Returns the node belonging to the given Hoelder parameter
+     * @param hoelderID
+     * @return
+     */
+    public Node getNode(int hoelderID) {
+        return nodes.get(hoelderID);
+    }
+
+    /**
+     * Returns the length of the longest chain of nested parameters
+     * @return
+     */
+    public int getDepth() {
+        int depth = 0;
+        for (Node root : roots) {
+            depth = Math.max(depth, root.getDepth());
+        }
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return roots.toString();
+    }
+
+    /**
+     * A single Hoelder parameter together with the parameters nested in it.
+     */
+    public static class Node {
+
+        private final Hoelder hoelder;
+        private final List<Node> children;
+
+        Node(Hoelder hoelder) {
+            this.hoelder = hoelder;
+            this.children = new ArrayList<>();
+        }
+
+        /**
+         *
+         * @return
+         */
+        public Hoelder getHoelder() {
+            return hoelder;
+        }
+
+        /**
+         * Returns the parameters directly nested in this one
+         * @return
+         */
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        /**
+         * Collects the Hoelder parameters of the subtree rooted at this node
+         * @param output The list the parameters are added to
+         */
+        public void collectSubtree(List<Hoelder> output) {
+            output.add(hoelder);
+            for (Node child : children) {
+                child.collectSubtree(output);
+            }
+        }
+
+        int getDepth() {
+            int depth = 0;
+            for (Node child : children) {
+                depth = Math.max(depth, child.getDepth());
+            }
+            return depth + 1;
+        }
+
+        @Override
+        public String toString() {
+            if (children.isEmpty()) {
+                return Integer.toString(hoelder.getHoelderID());
+            }
+            return hoelder.getHoelderID() + children.toString();
+        }
+    }
+}
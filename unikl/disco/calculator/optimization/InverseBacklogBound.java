@@ -18,6 +18,7 @@
  */
 package unikl.disco.calculator.optimization;
 
+import java.util.Collections;
 import java.util.HashMap;
 import unikl.disco.calculator.symbolic_math.Arrival;
 import unikl.disco.calculator.symbolic_math.Hoelder;
@@ -55,10 +56,11 @@ public class InverseBacklogBound implements Optimizable {
      */
     @Override
     public void prepare() {
-        // Remove the parameter that represents the backlog from the other Hoelder parameters
-        // TODO: Check this for correctness!
-        allHoelders.get(allHoelders.size()).setPValue(0);
-	allHoelders.remove(allHoelders.size());
+        // Remove the parameter that represents the backlog from the other Hoelder parameters,
+        // it is created last and hence has the highest ID of the bound
+        int backlogID = Collections.max(allHoelders.keySet());
+        allHoelders.get(backlogID).setPValue(0);
+        allHoelders.remove(backlogID);
     }
 
     /**
@@ -91,5 +93,14 @@ public class InverseBacklogBound implements Optimizable {
     public double getMaximumTheta() {
         return input.getThetastar();
     }
+
+    /**
+     *
+     * @return
+     */
+    @Override
+    public Arrival getInput() {
+        return input;
+    }
     
 }
@@ -90,5 +90,14 @@ public class InverseDelayBound implements Optimizable {
     public double getMaximumTheta() {
         return input.getThetastar();
     }
+
+    /**
+     *
+     * @return
+     */
+    @Override
+    public Arrival getInput() {
+        return input;
+    }
     
 }
@@ -19,6 +19,7 @@
 package unikl.disco.calculator.optimization;
 
 import java.util.Map;
+import unikl.disco.calculator.symbolic_math.Arrival;
 import unikl.disco.calculator.symbolic_math.Hoelder;
 import unikl.disco.calculator.symbolic_math.ParameterMismatchException;
 import unikl.disco.calculator.symbolic_math.ServerOverloadException;
@@ -59,4 +60,11 @@ public interface Optimizable {
      * @return
      */
     public double getMaximumTheta();
+
+    /**
+     * Returns the arrival, from which the bound is computed. This gives
+     * optimizers access to the structure of the underlying expressions.
+     * @return
+     */
+    public Arrival getInput();
 }
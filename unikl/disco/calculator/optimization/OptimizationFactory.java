@@ -42,6 +42,8 @@ public class OptimizationFactory {
                 return new SimpleOptimizer(bound, boundtype);
             case GRADIENT_OPT:
                 return new SimpleGradient(bound, boundtype);
+            case SEPARABLE_OPT:
+                return new SeparableOptimizer(bound, boundtype);
             default:
                 throw new AnalysisException("Optimization Type: " + type.toString() + " not known.");
         }
@@ -42,6 +42,16 @@ public enum OptimizationType {
 	public String toString() {
             return "Brute Force Optimization";
 	}
+    },
+
+    /**
+     * An exhaustive search, which optimizes independent Hoelder parameters separately.
+     */
+    SEPARABLE_OPT {
+        @Override
+	public String toString() {
+            return "Separable Hoelder Optimization";
+	}
     }
 		
 }
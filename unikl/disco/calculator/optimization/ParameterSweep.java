@@ -0,0 +1,394 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.optimization;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import unikl.disco.calculator.SNC;
+import unikl.disco.calculator.network.AbstractAnalysis;
+import unikl.disco.calculator.network.AnalysisPlan;
+import unikl.disco.calculator.network.AnalysisType;
+import unikl.disco.calculator.network.Flow;
+import unikl.disco.calculator.network.Network;
+import unikl.disco.calculator.network.Vertex;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.ArrivalFactory;
+import unikl.disco.calculator.symbolic_math.ArrivalType;
+import unikl.disco.calculator.symbolic_math.BadInitializationException;
+import unikl.disco.calculator.symbolic_math.ParameterMismatchException;
+import unikl.disco.calculator.symbolic_math.ServiceFactory;
+import unikl.disco.misc.AnalysisException;
+import unikl.disco.misc.NetworkActionException;
+
+/**
+ * Evaluates an optimized bound on a grid of parameter values, e.g. for
+ * capacity studies. Each axis of the grid varies either the rate of a
+ * constant rate server or one parameter of the arrival of a flow, the
+ * arrivals are described by their {@link ArrivalType} and the parameters
+ * of the corresponding method of the {@link ArrivalFactory}. The network
+ * is analyzed only once per thread, the grid points are evaluated by
+ * binding their values to an {@link AnalysisPlan}. The grid points are
+ * evaluated in parallel and written as CSV as soon as they complete.
+ * Points, which cannot be evaluated, e.g. since a vertex is overloaded,
+ * have the bound NaN and an error message.
+ * 
+ * @author Sebastian Henningsen
+ * @see AnalysisPlan
+ */
+public class ParameterSweep {
+
+    private final Network nw;
+    private final Flow flow;
+    private final Vertex vertex;
+    private final AnalysisType analysisType;
+    private final OptimizationType optAlgorithm;
+    private final BoundType boundType;
+    private final double value;
+    private final double thetaGran;
+    private final double hoelderGran;
+
+    private final List<Axis> axes = new ArrayList<>();
+    private final Map<Integer, ArrivalModel> arrivalModels = new HashMap<>();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a sweep without any axes, which evaluates the bound for the
+     * network as it is.
+     * @param nw the network, it is not altered
+     * @param flow the flow of interest
+     * @param vertex the vertex of interest
+     * @param analysisType the analysis, see {@link AnalysisPlan}
+     * @param optAlgorithm the optimization algorithm
+     * @param boundType the type of bound
+     * @param value the bound value or violation probability, see
+     * {@link SNC#optimizeSymbolicFunction}
+     * @param thetaGran the granularity of the theta-parameter
+     * @param hoelderGran the granularity of the Hoelder parameters
+     */
+    public ParameterSweep(Network nw, Flow flow, Vertex vertex, AnalysisType analysisType, OptimizationType optAlgorithm,
+            BoundType boundType, double value, double thetaGran, double hoelderGran) {
+        this.nw = nw;
+        this.flow = flow;
+        this.vertex = vertex;
+        this.analysisType = analysisType;
+        this.optAlgorithm = optAlgorithm;
+        this.boundType = boundType;
+        this.value = value;
+        this.thetaGran = thetaGran;
+        this.hoelderGran = hoelderGran;
+    }
+
+    /**
+     * Adds an axis, which varies the rate of a constant rate server.
+     * @param vertexID the id of the vertex
+     * @param rates the (positive) service rates
+     */
+    public void addServiceRateAxis(int vertexID, double... rates) {
+        Vertex swept = nw.getVertex(vertexID);
+        if (swept == null) {
+            throw new NetworkActionException("There is no vertex with ID " + vertexID + ".");
+        }
+        axes.add(new Axis(nameOf(swept.getAlias(), "v", vertexID) + ".rate", true, vertexID, 0, rates));
+    }
+
+    /**
+     * Describes the arrival of a flow by its type and the parameters of
+     * the corresponding method of the {@link ArrivalFactory}, e.g. rate,
+     * decay and prefactor of an {@link ArrivalType#EBB} arrival. The
+     * parameters are the values of the arrival at grid points, which do
+     * not vary them.
+     * @param flowID the id of the flow
+     * @param type the type of the arrival
+     * @param parameters the parameters, see {@link #getParameterNames}
+     */
+    public void setArrivalModel(int flowID, ArrivalType type, double... parameters) {
+        if (parameters.length != getParameterNames(type).length) {
+            throw new AnalysisException("An arrival of type " + type + " has the parameters " + Arrays.toString(getParameterNames(type)) + ".");
+        }
+        for (Axis axis : axes) {
+            if (!axis.service && axis.id == flowID) {
+                throw new NetworkActionException("The arrival of flow " + flowID + " is swept already, its model cannot be changed.");
+            }
+        }
+        if (nw.getFlow(flowID) == null) {
+            throw new NetworkActionException("There is no flow with ID " + flowID + ".");
+        }
+        arrivalModels.put(flowID, new ArrivalModel(type, parameters.clone()));
+    }
+
+    /**
+     * Adds an axis, which varies one parameter of the arrival of a flow.
+     * The arrival must have been described before, see
+     * {@link #setArrivalModel}.
+     * @param flowID the id of the flow
+     * @param parameter the name of the parameter, see
+     * {@link #getParameterNames}
+     * @param values the values of the parameter
+     */
+    public void addArrivalAxis(int flowID, String parameter, double... values) {
+        ArrivalModel model = arrivalModels.get(flowID);
+        if (model == null) {
+            throw new NetworkActionException("The arrival of flow " + flowID + " has not been described.");
+        }
+        int index = Arrays.asList(getParameterNames(model.type)).indexOf(parameter);
+        if (index < 0) {
+            throw new AnalysisException("An arrival of type " + model.type + " has no parameter " + parameter + ".");
+        }
+        axes.add(new Axis(nameOf(nw.getFlow(flowID).getAlias(), "f", flowID) + "." + parameter, false, flowID, index, values));
+    }
+
+    /**
+     * Returns the names of the parameters of arrivals of the given type,
+     * in the order of the corresponding method of the {@link ArrivalFactory}
+     * @param type the type of arrival
+     * @return the names of the parameters
+     */
+    public static String[] getParameterNames(ArrivalType type) {
+        switch (type) {
+            case CONSTANT_RATE:
+            case EXPONENTIAL:
+                return new String[]{"rate"};
+            case EBB:
+                return new String[]{"rate", "decay", "prefactor"};
+            case STATIONARYTB:
+                return new String[]{"rate", "bucket", "maxTheta"};
+            default:
+                throw new AnalysisException("Arrivals of type " + type + " cannot be swept.");
+        }
+    }
+
+    private static Arrival buildArrival(ArrivalType type, double[] parameters) throws BadInitializationException {
+        switch (type) {
+            case CONSTANT_RATE:
+                return ArrivalFactory.buildConstantRate(parameters[0]);
+            case EXPONENTIAL:
+                return ArrivalFactory.buildExponentialRate(parameters[0]);
+            case EBB:
+                return ArrivalFactory.buildEBB(parameters[0], parameters[1], parameters[2]);
+            case STATIONARYTB:
+                return ArrivalFactory.buildStationaryTB(parameters[0], parameters[1], parameters[2]);
+            default:
+                throw new AnalysisException("Arrivals of type " + type + " cannot be swept.");
+        }
+    }
+
+    private static String nameOf(String alias, String prefix, int id) {
+        return alias.isEmpty() ? prefix + id : alias;
+    }
+
+    /**
+     * Sets the number of grid points evaluated at the same time. Each
+     * thread analyzes the network once.
+     * @param parallelism the number of threads, at least 1
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     *
+     * @return the number of grid points
+     */
+    public int getNumberOfPoints() {
+        int points = 1;
+        for (Axis axis : axes) {
+            points *= axis.values.length;
+        }
+        return points;
+    }
+
+    /**
+     *
+     * @return the names of the axes, as written to the CSV header
+     */
+    public List<String> getAxisNames() {
+        List<String> names = new ArrayList<>(axes.size());
+        for (Axis axis : axes) {
+            names.add(axis.name);
+        }
+        return names;
+    }
+
+    /**
+     * Evaluates the bound at all grid points. The grid points are indexed
+     * such that the last axis varies fastest. If <code>csv</code> is not
+     * null, a header and a line per grid point are written to it, in the
+     * order in which the points complete. The columns are the values of
+     * the axes, the bound and an error message.
+     * @param csv the writer for the results, may be null
+     * @return the bounds at the grid points, NaN for points which could
+     * not be evaluated
+     * @throws IOException if writing the results fails
+     */
+    public double[] run(final Writer csv) throws IOException {
+        final int points = getNumberOfPoints();
+        final double[] bounds = new double[points];
+        if (csv != null) {
+            StringBuilder header = new StringBuilder();
+            for (String name : getAxisNames()) {
+                header.append(name).append(',');
+            }
+            writeLine(csv, header.append("bound,error").toString());
+        }
+
+        // Each thread takes an idle plan or analyzes the network for a new one
+        final BlockingQueue<AnalysisPlan> idlePlans = new LinkedBlockingQueue<>();
+        final AbstractAnalysis.Boundtype analysisBound = SNC.getInstance().convertBoundTypes(boundType);
+        List<Callable<Void>> tasks = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            final int index = i;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    AnalysisPlan plan = idlePlans.poll();
+                    if (plan == null) {
+                        plan = SNC.getInstance().planAnalysis(flow, vertex, analysisType, analysisBound, nw);
+                    }
+                    double[] point = getPoint(index);
+                    String error = "";
+                    try {
+                        bind(plan, point);
+                        bounds[index] = SNC.getInstance().optimizePlan(plan, thetaGran, hoelderGran, optAlgorithm, boundType, value);
+                    } catch (AnalysisException | BadInitializationException | ParameterMismatchException e) {
+                        bounds[index] = Double.NaN;
+                        error = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                    } finally {
+                        idlePlans.offer(plan);
+                    }
+                    if (csv != null) {
+                        writeLine(csv, toCSV(point, bounds[index], error));
+                    }
+                    return null;
+                }
+            });
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AnalysisException(e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    } else if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new AnalysisException(e);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return bounds;
+    }
+
+    // Returns the values of the axes at the grid point with the given index
+    private double[] getPoint(int index) {
+        double[] point = new double[axes.size()];
+        for (int i = axes.size() - 1; i >= 0; i--) {
+            double[] values = axes.get(i).values;
+            point[i] = values[index % values.length];
+            index /= values.length;
+        }
+        return point;
+    }
+
+    // Every swept vertex and described flow is bound at each point, since the plans are reused
+    private void bind(AnalysisPlan plan, double[] point) throws BadInitializationException, ParameterMismatchException {
+        Map<Integer, double[]> arrivalParameters = new HashMap<>();
+        for (Map.Entry<Integer, ArrivalModel> entry : arrivalModels.entrySet()) {
+            arrivalParameters.put(entry.getKey(), entry.getValue().parameters.clone());
+        }
+        for (int i = 0; i < axes.size(); i++) {
+            Axis axis = axes.get(i);
+            if (axis.service) {
+                // Service rates are represented by negative values
+                plan.bindService(axis.id, ServiceFactory.buildConstantRate(-point[i]));
+            } else {
+                arrivalParameters.get(axis.id)[axis.parameterIndex] = point[i];
+            }
+        }
+        for (Map.Entry<Integer, double[]> entry : arrivalParameters.entrySet()) {
+            plan.bindArrival(entry.getKey(), buildArrival(arrivalModels.get(entry.getKey()).type, entry.getValue()));
+        }
+    }
+
+    private static String toCSV(double[] point, double bound, String error) {
+        StringBuilder line = new StringBuilder();
+        for (double coordinate : point) {
+            line.append(coordinate).append(',');
+        }
+        line.append(bound).append(',');
+        if (error != null && !error.isEmpty()) {
+            line.append('"').append(error.replace("\"", "\"\"").replaceAll("\\s+", " ")).append('"');
+        }
+        return line.toString();
+    }
+
+    private static void writeLine(Writer csv, String line) throws IOException {
+        synchronized (csv) {
+            csv.write(line);
+            csv.write(System.lineSeparator());
+            csv.flush();
+        }
+    }
+
+    private static class Axis {
+
+        final String name;
+        final boolean service;
+        final int id;
+        final int parameterIndex;
+        final double[] values;
+
+        Axis(String name, boolean service, int id, int parameterIndex, double[] values) {
+            this.name = name;
+            this.service = service;
+            this.id = id;
+            this.parameterIndex = parameterIndex;
+            this.values = values.clone();
+        }
+    }
+
+    private static class ArrivalModel {
+
+        final ArrivalType type;
+        final double[] parameters;
+
+        ArrivalModel(ArrivalType type, double[] parameters) {
+            this.type = type;
+            this.parameters = parameters;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.optimization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import unikl.disco.calculator.SNC;
+import unikl.disco.calculator.network.AnalysisPlan;
+import unikl.disco.calculator.network.AnalysisType;
+import unikl.disco.calculator.network.Flow;
+import unikl.disco.calculator.network.Network;
+import unikl.disco.calculator.network.UtilizationAnalyzer;
+import unikl.disco.calculator.network.Vertex;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.BadInitializationException;
+import unikl.disco.calculator.symbolic_math.ParameterMismatchException;
+import unikl.disco.calculator.symbolic_math.ServerOverloadException;
+import unikl.disco.calculator.symbolic_math.Service;
+import unikl.disco.calculator.symbolic_math.SymbolicFunction;
+import unikl.disco.calculator.symbolic_math.ThetaOutOfBoundException;
+import unikl.disco.calculator.symbolic_math.functions.ConstantFunction;
+import unikl.disco.calculator.symbolic_math.functions.EBBSigma;
+import unikl.disco.calculator.symbolic_math.functions.ExponentialSigma;
+import unikl.disco.calculator.symbolic_math.functions.StationaryTBSigma;
+import unikl.disco.misc.AnalysisException;
+
+/**
+ * Computes the derivatives of an optimized bound with respect to the
+ * parameters of the network, i.e. the rates of constant rate servers and
+ * the rates, buckets, decays and prefactors of the arrivals. This shows,
+ * which parameter the bound is most sensitive to, without sweeping each
+ * parameter. The bound is optimized once by the {@link SeparableOptimizer}.
+ * Afterwards each parameter is perturbed in both directions, while theta
+ * and the Hoelder parameters stay at their optimal values, and the
+ * derivative is estimated by central differences. Since the optimized
+ * bound is the minimum over theta and the Hoelder parameters, these
+ * derivatives approximate the ones of the optimized bound (envelope
+ * theorem), up to the granularities of the optimization. Each parameter
+ * costs two evaluations of the bound, the network is analyzed only once,
+ * see {@link AnalysisPlan}.
+ * 
+ * @author Sebastian Henningsen
+ */
+public class SensitivityAnalysis {
+
+    // The relative step of the finite differences
+    private static final double RELATIVE_STEP = 1e-4;
+
+    private final Network nw;
+    private final Flow flow;
+    private final Vertex vertex;
+    private final AnalysisType analysisType;
+    private final BoundType boundType;
+    private final double value;
+    private final double thetaGran;
+    private final double hoelderGran;
+
+    private double optimalBound = Double.NaN;
+    private double optimalTheta = Double.NaN;
+
+    /**
+     * Creates a sensitivity analysis of the bound of a flow at a vertex.
+     * @param nw the network, it is not altered
+     * @param flow the flow of interest
+     * @param vertex the vertex of interest
+     * @param analysisType the analysis, see {@link AnalysisPlan}
+     * @param boundType the type of bound
+     * @param value the bound value or violation probability, see
+     * {@link SNC#optimizeSymbolicFunction}
+     * @param thetaGran the granularity of the theta-parameter
+     * @param hoelderGran the granularity of the Hoelder parameters
+     */
+    public SensitivityAnalysis(Network nw, Flow flow, Vertex vertex, AnalysisType analysisType, BoundType boundType,
+            double value, double thetaGran, double hoelderGran) {
+        this.nw = nw;
+        this.flow = flow;
+        this.vertex = vertex;
+        this.analysisType = analysisType;
+        this.boundType = boundType;
+        this.value = value;
+        this.thetaGran = thetaGran;
+        this.hoelderGran = hoelderGran;
+    }
+
+    /**
+     * Optimizes the bound and computes its derivatives with respect to all
+     * parameters of the component of the vertex of interest. Parameters of
+     * other functions than constant rates, exponential increments,
+     * stationary token buckets and EBB-arrivals are not taken into account.
+     * @return the sensitivities, ordered by descending absolute elasticity
+     * @throws AnalysisException if the bound can't be optimized, e.g.
+     * since a vertex is overloaded
+     */
+    public List<Sensitivity> analyze() {
+        AnalysisPlan plan = SNC.getInstance().planAnalysis(flow, vertex, analysisType, SNC.getInstance().convertBoundTypes(boundType), nw);
+        try {
+            new UtilizationAnalyzer(plan.getNetwork()).verifyStable(flow.getID(), vertex.getID());
+        } catch (ServerOverloadException e) {
+            throw new AnalysisException(e);
+        }
+
+        //Backlog values are represented by negative values in the arrival representation
+        double boundValue = (boundType == BoundType.BACKLOG && value > 0) ? -value : value;
+        Optimizable bound = BoundFactory.createBound(plan.getBound(), boundType, boundValue);
+        SeparableOptimizer optimizer = new SeparableOptimizer(bound, SNC.getInstance().convertBoundTypes(boundType));
+        try {
+            optimalBound = optimizer.minimize(thetaGran, hoelderGran);
+        } catch (ThetaOutOfBoundException | ParameterMismatchException | ServerOverloadException e) {
+            throw new AnalysisException(e);
+        }
+        optimalTheta = optimizer.getOptimalTheta();
+        if (Double.isNaN(optimalTheta)) {
+            throw new AnalysisException("The bound is not defined for any theta, there is no optimum to be analyzed.");
+        }
+
+        List<Sensitivity> sensitivities = new ArrayList<>();
+        for (Parameter parameter : collectParameters(plan)) {
+            sensitivities.add(differentiate(plan, bound, parameter));
+        }
+        plan.reset();
+        Collections.sort(sensitivities, new Comparator<Sensitivity>() {
+            @Override
+            public int compare(Sensitivity s1, Sensitivity s2) {
+                // NaN elasticities are ranked last
+                return Double.compare(rankOf(s2), rankOf(s1));
+            }
+
+            private double rankOf(Sensitivity sensitivity) {
+                double elasticity = Math.abs(sensitivity.getElasticity());
+                return Double.isNaN(elasticity) ? -1 : elasticity;
+            }
+        });
+        return sensitivities;
+    }
+
+    private Sensitivity differentiate(AnalysisPlan plan, Optimizable bound, Parameter parameter) {
+        double x = parameter.value;
+        double h = x != 0 ? RELATIVE_STEP * Math.abs(x) : RELATIVE_STEP;
+        double upper = evaluateAt(plan, bound, parameter, x + h);
+        double lower = evaluateAt(plan, bound, parameter, x - h);
+        double derivative;
+        if (!Double.isNaN(upper) && !Double.isNaN(lower)) {
+            derivative = (upper - lower) / (2 * h);
+        } else if (!Double.isNaN(upper)) {
+            // E.g. a smaller decay would exclude the optimal theta
+            derivative = (upper - optimalBound) / h;
+        } else if (!Double.isNaN(lower)) {
+            derivative = (optimalBound - lower) / h;
+        } else {
+            derivative = Double.NaN;
+        }
+        parameter.restore(plan);
+        return new Sensitivity(parameter.name, x, derivative, derivative * x / optimalBound);
+    }
+
+    // Evaluates the bound at the optimal theta and Hoelder parameters, NaN if it is not defined
+    private double evaluateAt(AnalysisPlan plan, Optimizable bound, Parameter parameter, double x) {
+        try {
+            parameter.bind(plan, x);
+            return bound.evaluate(optimalTheta);
+        } catch (BadInitializationException | ThetaOutOfBoundException | ParameterMismatchException | ServerOverloadException e) {
+            return Double.NaN;
+        }
+    }
+
+    private List<Parameter> collectParameters(final AnalysisPlan plan) {
+        List<Parameter> parameters = new ArrayList<>();
+        for (final Integer vertexID : plan.getVertexIDs()) {
+            final Service service = plan.getBoundService(vertexID);
+            String prefix = nameOf(plan.getNetwork().getVertex(vertexID).getAlias(), "v", vertexID);
+            if (service.getRho() instanceof ConstantFunction) {
+                // Service rates are represented by negative values
+                parameters.add(new Parameter(prefix + ".rate", -((ConstantFunction) service.getRho()).getRate()) {
+                    @Override
+                    void bind(AnalysisPlan plan, double x) throws ParameterMismatchException {
+                        plan.bindService(vertexID, new Service(service.getSigma(), new ConstantFunction(-x), nw));
+                    }
+
+                    @Override
+                    void restore(AnalysisPlan plan) {
+                        rebind(plan, vertexID, service);
+                    }
+                });
+            }
+        }
+        for (final Integer flowID : plan.getFlowIDs()) {
+            final Arrival arrival = plan.getBoundArrival(flowID);
+            final SymbolicFunction sigma = arrival.getSigma();
+            final SymbolicFunction rho = arrival.getRho();
+            String prefix = nameOf(plan.getNetwork().getFlow(flowID).getAlias(), "f", flowID);
+            if (rho instanceof ConstantFunction) {
+                parameters.add(new ArrivalParameter(prefix + ".rate", ((ConstantFunction) rho).getRate(), flowID, arrival) {
+                    @Override
+                    Arrival perturb(double x) {
+                        return new Arrival(sigma, new ConstantFunction(x), nw);
+                    }
+                });
+            } else if (rho instanceof ExponentialSigma) {
+                parameters.add(new ArrivalParameter(prefix + ".rate", ((ExponentialSigma) rho).getLambda(), flowID, arrival) {
+                    @Override
+                    Arrival perturb(double x) throws BadInitializationException {
+                        return new Arrival(sigma, new ExponentialSigma(x), nw);
+                    }
+                });
+            }
+            if (sigma instanceof StationaryTBSigma) {
+                parameters.add(new ArrivalParameter(prefix + ".bucket", ((StationaryTBSigma) sigma).getBucket(), flowID, arrival) {
+                    @Override
+                    Arrival perturb(double x) throws BadInitializationException {
+                        return new Arrival(new StationaryTBSigma(x, sigma.getmaxTheta()), rho, nw);
+                    }
+                });
+            } else if (sigma instanceof EBBSigma) {
+                final EBBSigma ebb = (EBBSigma) sigma;
+                parameters.add(new ArrivalParameter(prefix + ".decay", ebb.getDecay(), flowID, arrival) {
+                    @Override
+                    Arrival perturb(double x) throws BadInitializationException {
+                        return new Arrival(new EBBSigma(x, ebb.getPrefactor()), rho, nw);
+                    }
+                });
+                parameters.add(new ArrivalParameter(prefix + ".prefactor", ebb.getPrefactor(), flowID, arrival) {
+                    @Override
+                    Arrival perturb(double x) throws BadInitializationException {
+                        return new Arrival(new EBBSigma(ebb.getDecay(), x), rho, nw);
+                    }
+                });
+            }
+        }
+        return parameters;
+    }
+
+    private static void rebind(AnalysisPlan plan, int vertexID, Service service) {
+        try {
+            plan.bindService(vertexID, service);
+        } catch (ParameterMismatchException e) {
+            // The service was bound before
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String nameOf(String alias, String prefix, int id) {
+        return alias.isEmpty() ? prefix + id : alias;
+    }
+
+    /**
+     *
+     * @return the optimized bound of the last analysis
+     */
+    public double getOptimalBound() {
+        return optimalBound;
+    }
+
+    /**
+     *
+     * @return the theta, at which the bound of the last analysis is optimal
+     */
+    public double getOptimalTheta() {
+        return optimalTheta;
+    }
+
+    /**
+     * The sensitivity of the bound with respect to a single parameter.
+     */
+    public static class Sensitivity {
+
+        private final String parameter;
+        private final double value;
+        private final double derivative;
+        private final double elasticity;
+
+        Sensitivity(String parameter, double value, double derivative, double elasticity) {
+            this.parameter = parameter;
+            this.value = value;
+            this.derivative = derivative;
+            this.elasticity = elasticity;
+        }
+
+        /**
+         *
+         * @return the name of the parameter, e.g. <code>v1.rate</code>
+         */
+        public String getParameter() {
+            return parameter;
+        }
+
+        /**
+         *
+         * @return the current value of the parameter
+         */
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         *
+         * @return the derivative of the bound with respect to the parameter
+         */
+        public double getDerivative() {
+            return derivative;
+        }
+
+        /**
+         * Returns the relative change of the bound per relative change of
+         * the parameter, which is comparable between parameters of
+         * different units.
+         * @return the elasticity
+         */
+        public double getElasticity() {
+            return elasticity;
+        }
+
+        @Override
+        public String toString() {
+            return parameter + "=" + value + ": derivative " + derivative + ", elasticity " + elasticity;
+        }
+    }
+
+    private abstract static class Parameter {
+
+        final String name;
+        final double value;
+
+        Parameter(String name, double value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        abstract void bind(AnalysisPlan plan, double x) throws BadInitializationException, ParameterMismatchException;
+
+        // Binds the unperturbed value again
+        abstract void restore(AnalysisPlan plan);
+    }
+
+    private abstract static class ArrivalParameter extends Parameter {
+
+        final int flowID;
+        final Arrival arrival;
+
+        ArrivalParameter(String name, double value, int flowID, Arrival arrival) {
+            super(name, value);
+            this.flowID = flowID;
+            this.arrival = arrival;
+        }
+
+        abstract Arrival perturb(double x) throws BadInitializationException;
+
+        @Override
+        void bind(AnalysisPlan plan, double x) throws BadInitializationException, ParameterMismatchException {
+            plan.bindArrival(flowID, perturb(x));
+        }
+
+        @Override
+        void restore(AnalysisPlan plan) {
+            try {
+                plan.bindArrival(flowID, arrival);
+            } catch (ParameterMismatchException e) {
+                // The arrival was bound before
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.optimization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import unikl.disco.calculator.symbolic_math.Arrival;
+import unikl.disco.calculator.symbolic_math.Hoelder;
+import unikl.disco.calculator.symbolic_math.ParameterMismatchException;
+import unikl.disco.calculator.symbolic_math.ServerOverloadException;
+import unikl.disco.calculator.symbolic_math.ThetaOutOfBoundException;
+import unikl.disco.calculator.network.AbstractAnalysis.Boundtype;
+
+/**
+ * An optimizer, which exploits the structure of the Hoelder parameters
+ * in the bound. The parameters are arranged in a
+ * {@link HoelderDecomposition}: Independent parameters (siblings in the
+ * decomposition) are optimized one after another, while the parameters
+ * nested in a parameter are optimized for every value of the enclosing
+ * one. Each subproblem is cached w.r.t. the values of all parameters
+ * outside of it, as well as every evaluated configuration. For each
+ * configuration theta is searched exhaustively, like in
+ * {@link SimpleOptimizer}. Hence instead of the joint grid of all
+ * parameters only the sum of the grids of independent subtrees has to
+ * be searched.
+ * @author Sebastian Henningsen
+ */
+public class SeparableOptimizer extends AbstractOptimizer {
+
+    private double thetagranularity;
+    private double[] pValues;
+    private List<Hoelder> parameters;
+    private int[] current;
+    private Map<Integer, Integer> positions;
+    private Map<List<Integer>, Double> evaluations;
+    private Map<List<Integer>, Double> thetas;
+    private Map<List<Integer>, int[]> subproblems;
+    private Map<List<Integer>, Double> subproblemValues;
+    private double optimalTheta;
+
+    /**
+     * Creation is delegated to the @link AbstractOptimizer subclass.
+     * @param input
+     * @param boundtype
+     */
+    public SeparableOptimizer(Optimizable input, Boundtype boundtype) {
+        super(input, boundtype);
+    }
+
+    @Override
+    public double minimize(double thetagranularity, double hoeldergranularity) throws ThetaOutOfBoundException, ParameterMismatchException, ServerOverloadException {
+        bound.prepare();
+        this.thetagranularity = thetagranularity;
+        this.pValues = createGrid(hoeldergranularity);
+        this.evaluations = new HashMap<>();
+        this.thetas = new HashMap<>();
+        this.subproblems = new HashMap<>();
+        this.subproblemValues = new HashMap<>();
+
+        Map<Integer, Hoelder> allparameters = bound.getHoelderParameters();
+        HoelderDecomposition decomposition = new HoelderDecomposition(bound.getInput(), allparameters);
+        parameters = new ArrayList<>(allparameters.values());
+        positions = new HashMap<>();
+        current = new int[parameters.size()];
+        for (int i = 0; i < parameters.size(); i++) {
+            positions.put(parameters.get(i).getHoelderID(), i);
+            parameters.get(i).setPValue(pValues[0]);
+        }
+
+        maxTheta = bound.getMaximumTheta();
+        if (maxTheta == Double.POSITIVE_INFINITY) {
+            throw new ThetaOutOfBoundException("DEADLOCK: There is no maximal theta given for this optimization (check arrival models). Try Gradient Heuristic.");
+        }
+
+        double optValue = optimizeGroup(decomposition.getRoots());
+        // Leaves the parameters at their optimal values
+        apply(current);
+        Double theta = thetas.get(toKey(current));
+        optimalTheta = (theta == null) ? Double.NaN : theta;
+        return optValue;
+    }
+
+    /**
+     * Returns the value of theta, at which the last call to
+     * {@link minimize} found its optimum.
+     * @return
+     */
+    public double getOptimalTheta() {
+        return optimalTheta;
+    }
+
+    /**
+     * Lists the possible values of a single Hoelder parameter: p runs
+     * from 2 towards 1 in steps of the granularity, the same holds for q.
+     */
+    private static double[] createGrid(double hoeldergranularity) {
+        List<Double> values = new ArrayList<>();
+        values.add(2.0);
+        for (double p = 2 - hoeldergranularity; p > 1; p -= hoeldergranularity) {
+            values.add(p);
+            values.add(1 / (1 - 1 / p));
+        }
+        double[] grid = new double[values.size()];
+        for (int i = 0; i < grid.length; i++) {
+            grid[i] = values.get(i);
+        }
+        return grid;
+    }
+
+    /**
+     * Optimizes mutually independent parameters by cycling through them
+     * until none of them can be improved anymore.
+     */
+    private double optimizeGroup(List<HoelderDecomposition.Node> group) throws ParameterMismatchException {
+        double optValue = evaluate();
+        boolean improved = !group.isEmpty();
+        while (improved) {
+            improved = false;
+            for (HoelderDecomposition.Node node : group) {
+                double value = optimizeNode(node);
+                if (value < optValue) {
+                    optValue = value;
+                    improved = true;
+                }
+            }
+        }
+        return optValue;
+    }
+
+    /**
+     * Optimizes the subtree rooted at <code>node</code>, while all other
+     * parameters stay fixed. For each value of the node's parameter the
+     * nested parameters are optimized. Afterwards the parameters of the
+     * subtree are set to the best configuration found.
+     */
+    private double optimizeNode(HoelderDecomposition.Node node) throws ParameterMismatchException {
+        List<Hoelder> subtree = new ArrayList<>();
+        node.collectSubtree(subtree);
+        int[] subtreePositions = new int[subtree.size()];
+        for (int i = 0; i < subtree.size(); i++) {
+            subtreePositions[i] = positions.get(subtree.get(i).getHoelderID());
+        }
+
+        // The subproblem is determined by the values of all parameters outside the subtree
+        int[] context = current.clone();
+        for (int position : subtreePositions) {
+            context[position] = -1;
+        }
+        List<Integer> key = toKey(context);
+        key.add(node.getHoelder().getHoelderID());
+
+        int[] best = subproblems.get(key);
+        if (best == null) {
+            double optValue = Double.POSITIVE_INFINITY;
+            int position = subtreePositions[0];
+            best = current.clone();
+            for (int i = 0; i < pValues.length; i++) {
+                current[position] = i;
+                parameters.get(position).setPValue(pValues[i]);
+                double value = optimizeGroup(node.getChildren());
+                if (value < optValue) {
+                    optValue = value;
+                    best = current.clone();
+                }
+            }
+            subproblems.put(key, best);
+            subproblemValues.put(key, optValue);
+        }
+        current = best.clone();
+        apply(current);
+        return subproblemValues.get(key);
+    }
+
+    private void apply(int[] configuration) {
+        for (int i = 0; i < configuration.length; i++) {
+            parameters.get(i).setPValue(pValues[configuration[i]]);
+        }
+    }
+
+    /**
+     * Computes the best bound over all values of theta for the current
+     * configuration of Hoelder parameters.
+     */
+    private double evaluate() throws ParameterMismatchException {
+        List<Integer> key = toKey(current);
+        Double cached = evaluations.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        double optValue = Double.POSITIVE_INFINITY;
+        double theta = thetagranularity;
+        double currentMaxTheta = bound.getMaximumTheta();
+        while (theta < currentMaxTheta) {
+            try {
+                double value = bound.evaluate(theta);
+                if (value < optValue) {
+                    optValue = value;
+                    thetas.put(key, theta);
+                }
+            } catch (ServerOverloadException | ThetaOutOfBoundException e) {
+                // The bound is not defined for this theta
+            }
+            theta += thetagranularity;
+        }
+        evaluations.put(key, optValue);
+        return optValue;
+    }
+
+    private static List<Integer> toKey(int[] configuration) {
+        List<Integer> key = new ArrayList<>(configuration.length + 1);
+        for (int value : configuration) {
+            key.add(value);
+        }
+        return key;
+    }
+
+    /**
+     * Delegates to {@link minimize}.
+     * @deprecated Functionality is now covered by @link minimize
+     */
+    @Deprecated
+    @Override
+    public double Bound(Arrival input, Boundtype boundtype, double bound, double thetagranularity, double hoeldergranularity) throws ThetaOutOfBoundException, ParameterMismatchException, ServerOverloadException {
+        switch (boundtype) {
+            case BACKLOG:
+                return new SeparableOptimizer(BoundFactory.createBound(input, BoundType.BACKLOG, bound), boundtype).minimize(thetagranularity, hoeldergranularity);
+            case DELAY:
+                return new SeparableOptimizer(BoundFactory.createBound(input, BoundType.DELAY, bound), boundtype).minimize(thetagranularity, hoeldergranularity);
+            default:
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Delegates to {@link minimize}.
+     * @deprecated Functionality is now covered by @link minimize
+     */
+    @Deprecated
+    @Override
+    public double ReverseBound(Arrival input, Boundtype boundtype, double violation_probability, double thetagranularity, double hoeldergranularity) throws ThetaOutOfBoundException, ParameterMismatchException, ServerOverloadException {
+        switch (boundtype) {
+            case BACKLOG:
+                return new SeparableOptimizer(BoundFactory.createBound(input, BoundType.INVERSE_BACKLOG, violation_probability), boundtype).minimize(thetagranularity, hoeldergranularity);
+            case DELAY:
+                return new SeparableOptimizer(BoundFactory.createBound(input, BoundType.INVERSE_DELAY, violation_probability), boundtype).minimize(thetagranularity, hoeldergranularity);
+            default:
+                return Double.NaN;
+        }
+    }
+}
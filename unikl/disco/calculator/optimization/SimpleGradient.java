@@ -18,6 +18,7 @@
  */
 package unikl.disco.calculator.optimization;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import unikl.disco.calculator.symbolic_math.Arrival;
@@ -212,8 +213,8 @@ public class SimpleGradient extends AbstractOptimizer {
 			
 		//If needed, the parameter, which represents the backlog, must be separated from the other Hoelder parameters
 		if(boundtype == AbstractAnalysis.Boundtype.BACKLOG){
-                    allparameters.get(allparameters.size()).setPValue(bound);
-                    allparameters.remove(allparameters.size());
+                    allparameters.get(Collections.max(allparameters.keySet())).setPValue(bound);
+                    allparameters.remove(Collections.max(allparameters.keySet()));
 		}
 		for(Map.Entry<Integer, Hoelder> entry : allparameters.entrySet()){
 			entry.getValue().setPValue(2);
@@ -525,8 +526,8 @@ public class SimpleGradient extends AbstractOptimizer {
 			
 		//If needed, the parameter, which represents the backlog, must be separated from the other Hoelder parameters
 		if(boundtype == AbstractAnalysis.Boundtype.BACKLOG){
-			allparameters.get(allparameters.size()).setPValue(0);
-			allparameters.remove(allparameters.size());
+			allparameters.get(Collections.max(allparameters.keySet())).setPValue(0);
+			allparameters.remove(Collections.max(allparameters.keySet()));
 		}
 		System.out.println("allparameters:"+ allparameters.toString());
 		for(Map.Entry<Integer, Hoelder> entry : allparameters.entrySet()){
@@ -19,6 +19,7 @@
 package unikl.disco.calculator.optimization;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -154,8 +155,8 @@ public class SimpleOptimizer extends AbstractOptimizer {
 		
 		//If needed, the parameter, which represents the backlog, must be separated from the other Hoelder parameters
 		if(boundtype == AbstractAnalysis.Boundtype.BACKLOG){
-			allparameters.get(allparameters.size()).setPValue(0);
-			allparameters.remove(allparameters.size());
+			allparameters.get(Collections.max(allparameters.keySet())).setPValue(0);
+			allparameters.remove(Collections.max(allparameters.keySet()));
 		}
 		
 		IncrementList hoelderlist = new IncrementList(hoeldergranularity);
@@ -371,8 +372,8 @@ public class SimpleOptimizer extends AbstractOptimizer {
 		
 		//If needed, the parameter, which represents the backlog, must be separated from the other Hoelder parameters
 		if(boundtype == AbstractAnalysis.Boundtype.BACKLOG){
-			allparameters.get(allparameters.size()).setPValue(bound);
-			allparameters.remove(allparameters.size());
+			allparameters.get(Collections.max(allparameters.keySet())).setPValue(bound);
+			allparameters.remove(Collections.max(allparameters.keySet()));
 		}
 		
 		IncrementList hoelderlist = new IncrementList(hoeldergranularity);
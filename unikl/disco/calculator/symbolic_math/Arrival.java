@@ -19,7 +19,6 @@
 package unikl.disco.calculator.symbolic_math;
 
 import java.io.Serializable;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import unikl.disco.calculator.symbolic_math.functions.BFunction;
@@ -27,6 +26,7 @@ import unikl.disco.calculator.symbolic_math.functions.scaledFunction;
 import unikl.disco.calculator.symbolic_math.functions.ConstantFunction;
 
 import unikl.disco.calculator.network.Network;
+import unikl.disco.misc.IntegerBitSet;
 import unikl.disco.misc.SetUtils;
 
 /**
@@ -78,8 +78,8 @@ public class Arrival implements Serializable {
 	public Arrival(Network nw){ 
 		rho = new ConstantFunction(0);
 		sigma = new ConstantFunction(0);
-		Arrivaldependencies = new HashSet<>();
-		Servicedependencies = new HashSet<>();
+		Arrivaldependencies = new IntegerBitSet();
+		Servicedependencies = new IntegerBitSet();
                 this.nw = nw;
 	}
 
@@ -95,8 +95,8 @@ public class Arrival implements Serializable {
 	public Arrival(SymbolicFunction sigma, SymbolicFunction rho, Network nw) {
 		this.rho = rho;
 		this.sigma = sigma;
-		Arrivaldependencies = new HashSet<Integer>();
-		Servicedependencies = new HashSet<Integer>();
+		Arrivaldependencies = new IntegerBitSet();
+		Servicedependencies = new IntegerBitSet();
                 this.nw = nw;
 	}
 	
@@ -119,9 +119,9 @@ public class Arrival implements Serializable {
 	public Arrival(SymbolicFunction sigma, SymbolicFunction rho, int flow_id, Network nw) {
 		this.rho = rho;
 		this.sigma = sigma;
-		Arrivaldependencies = new HashSet<Integer>();
+		Arrivaldependencies = new IntegerBitSet();
 		Arrivaldependencies.add(flow_id);
-		Servicedependencies = new HashSet<Integer>();
+		Servicedependencies = new IntegerBitSet();
                 this.nw = nw;
 	}
 	
@@ -232,7 +232,7 @@ public class Arrival implements Serializable {
 		Arrival arrival;
 		
 		//Dependent case
-		if(!SetUtils.getIntersection(arrival1.getServicedependencies(),arrival2.getServicedependencies()).isEmpty() || !SetUtils.getIntersection(arrival1.getArrivaldependencies(), arrival2.getArrivaldependencies()).isEmpty()){
+		if(SetUtils.intersects(arrival1.getServicedependencies(), arrival2.getServicedependencies()) || SetUtils.intersects(arrival1.getArrivaldependencies(), arrival2.getArrivaldependencies())){
 			Hoelder hoelder = nw.createHoelder();
 			SymbolicFunction givensigma = new AdditiveComposition(arrival1.getSigma(),arrival2.getSigma(),hoelder);
 			SymbolicFunction givenrho = new AdditiveComposition(arrival1.getRho(), arrival2.getRho(), hoelder);
@@ -270,7 +270,7 @@ public class Arrival implements Serializable {
 		Arrival output;
 
 		//Dependent case
-		if(!SetUtils.getIntersection(arrival.getServicedependencies(),service.getServicedependencies()).isEmpty() || !SetUtils.getIntersection(service.getArrivaldependencies(), arrival.getArrivaldependencies()).isEmpty()){
+		if(SetUtils.intersects(arrival.getServicedependencies(), service.getServicedependencies()) || SetUtils.intersects(service.getArrivaldependencies(), arrival.getArrivaldependencies())){
 			Hoelder hoelder = nw.createHoelder();
 			SymbolicFunction givensigma = new AdditiveComposition(new AdditiveComposition(arrival.getSigma(),service.getSigma(),hoelder),new BFunction(new AdditiveComposition(arrival.getRho(),service.getRho(),hoelder)));
 			SymbolicFunction givenrho = new scaledFunction(arrival.getRho(),hoelder, false);
@@ -18,7 +18,9 @@
  */
 package unikl.disco.calculator.symbolic_math;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -28,7 +30,7 @@ import unikl.disco.misc.SetUtils;
  *
  * @author Sebastian Henningsen
  */
-public abstract class BinaryFunction implements SymbolicFunction {
+public abstract class BinaryFunction implements ComposedFunction {
 
     SymbolicFunction first;
     SymbolicFunction second;
@@ -111,6 +113,24 @@ public abstract class BinaryFunction implements SymbolicFunction {
 		|| (hoelder != null && parameters.size() != SetUtils.getUnion(firstParameters.keySet(), secondParameters.keySet()).size() + 1));
     }
 
+    /**
+     *
+     * @return
+     */
+    @Override
+    public List<SymbolicFunction> getComponents() {
+	return Arrays.asList(first, second);
+    }
+
+    /**
+     *
+     * @return
+     */
+    @Override
+    public Hoelder getHoelder() {
+	return hoelder;
+    }
+
     /**
      *
      * @return
@@ -0,0 +1,47 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.symbolic_math;
+
+import java.util.List;
+
+/**
+ * Interface for {@link SymbolicFunction}s, which are built from one
+ * or more other symbolic functions (their components). It exposes
+ * the structure of an expression tree, such that e.g. an optimizer
+ * can find out which Hoelder parameters are introduced at which
+ * node and which parameters belong to disjoint subtrees.
+ * 
+ * @author Sebastian Henningsen
+ */
+public interface ComposedFunction extends SymbolicFunction {
+
+    /**
+     * Returns the functions this function is composed of
+     * @return The direct components of this function
+     */
+    public List<SymbolicFunction> getComponents();
+
+    /**
+     * Returns the Hoelder parameter introduced at this node of the
+     * expression tree
+     * @return The Hoelder parameter or null, if the components are
+     * combined independently
+     */
+    public Hoelder getHoelder();
+}
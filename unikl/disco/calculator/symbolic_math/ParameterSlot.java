@@ -0,0 +1,123 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.calculator.symbolic_math;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A placeholder in an expression tree, which stands for an exchangeable
+ * {@link SymbolicFunction}. It behaves like the function bound to it,
+ * such that an expression, which was built once from slots, can be
+ * evaluated for other arrivals or services by binding new functions
+ * instead of building the expression again. The bound function must
+ * depend on the same Hoelder parameters as the one it replaces, since
+ * the enclosing expressions know their parameters from construction.
+ * Each slot has a unique ID, which distinguishes it from other slots
+ * bound to equal functions.
+ * 
+ * @author Sebastian Henningsen
+ * @see SymbolicFunction
+ * @see unikl.disco.calculator.network.AnalysisPlan
+ */
+public class ParameterSlot implements ComposedFunction {
+
+	private static final long serialVersionUID = 6254119725048193317L;
+	private static final AtomicLong nextID = new AtomicLong();
+	private final long slotID;
+	private volatile SymbolicFunction bound;
+
+	/**
+	 * Creates a slot, to which <code>initial</code> is bound
+	 * @param initial the function the slot initially stands for
+	 */
+	public ParameterSlot(SymbolicFunction initial) {
+		this.slotID = nextID.getAndIncrement();
+		this.bound = initial;
+	}
+
+	/**
+	 * Binds a new function to this slot. Every expression containing
+	 * the slot takes the new function into account, when it is
+	 * evaluated the next time.
+	 * @param function the new function
+	 * @throws ParameterMismatchException if the function depends on
+	 * other Hoelder parameters than the currently bound one
+	 */
+	public void bind(SymbolicFunction function) throws ParameterMismatchException {
+		if (!function.getParameters().keySet().equals(bound.getParameters().keySet())) {
+			throw new ParameterMismatchException("The function bound to a slot must have the same Hoelder parameters as before: "
+					+ bound.getParameters().keySet() + " expected, but " + function.getParameters().keySet() + " given.");
+		}
+		bound = function;
+	}
+
+	@Override
+	public double getValue(double theta, Map<Integer, Hoelder> parameters)
+			throws ThetaOutOfBoundException, ParameterMismatchException, ServerOverloadException {
+		return bound.getValue(theta, parameters);
+	}
+
+	/**
+	 * Returns the string representation of the bound function
+	 * @return 
+	 */
+	@Override
+	public String toString() {
+		return bound.toString();
+	}
+
+	@Override
+	public double getmaxTheta() {
+		return bound.getmaxTheta();
+	}
+
+	@Override
+	public Map<Integer, Hoelder> getParameters() {
+		return bound.getParameters();
+	}
+
+	@Override
+	public List<SymbolicFunction> getComponents() {
+		return Collections.singletonList(bound);
+	}
+
+	@Override
+	public Hoelder getHoelder() {
+		return null;
+	}
+
+	/**
+	 *
+	 * @return the function currently bound to this slot
+	 */
+	public SymbolicFunction getBound() {
+		return bound;
+	}
+
+	/**
+	 *
+	 * @return the unique ID of this slot
+	 */
+	public long getSlotID() {
+		return slotID;
+	}
+}
@@ -20,12 +20,12 @@ package unikl.disco.calculator.symbolic_math;
 
 import java.io.Serializable;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Set;
 import unikl.disco.calculator.symbolic_math.functions.BFunction;
 import unikl.disco.calculator.symbolic_math.functions.ConstantFunction;
 
 import unikl.disco.calculator.network.Network;
+import unikl.disco.misc.IntegerBitSet;
 import unikl.disco.misc.SetUtils;
 
 
@@ -76,8 +76,8 @@ public class Service implements Serializable {
 		rho = new ConstantFunction(0);
 		sigma = new ConstantFunction(0);
 		thetastar = Math.min(rho.getmaxTheta(), sigma.getmaxTheta());
-		Arrivaldependencies = new HashSet<Integer>();
-		Servicedependencies = new HashSet<Integer>();
+		Arrivaldependencies = new IntegerBitSet();
+		Servicedependencies = new IntegerBitSet();
                 this.nw = nw;
 	}
 	
@@ -95,8 +95,8 @@ public class Service implements Serializable {
 		this.rho = rho;
 		this.sigma = sigma;
 		thetastar = Math.min(rho.getmaxTheta(), sigma.getmaxTheta());
-		Arrivaldependencies = new HashSet<Integer>();
-		Servicedependencies = new HashSet<Integer>();
+		Arrivaldependencies = new IntegerBitSet();
+		Servicedependencies = new IntegerBitSet();
                 this.nw = nw;
 	}
 	
@@ -118,8 +118,8 @@ public class Service implements Serializable {
 		this.rho = rho;
 		this.sigma = sigma;
 		thetastar = Math.min(rho.getmaxTheta(), sigma.getmaxTheta());
-		Arrivaldependencies = new HashSet<Integer>();
-		Servicedependencies = new HashSet<Integer>();
+		Arrivaldependencies = new IntegerBitSet();
+		Servicedependencies = new IntegerBitSet();
 		Servicedependencies.add(vertex_id);
                 this.nw = nw;
 	}
@@ -202,7 +202,7 @@ public class Service implements Serializable {
 		Service service;
 		
 		//Dependent Case
-		if(!SetUtils.getIntersection(service1.getServicedependencies(),service2.getServicedependencies()).isEmpty() || !SetUtils.getIntersection(service1.getArrivaldependencies(), service2.getArrivaldependencies()).isEmpty()){
+		if(SetUtils.intersects(service1.getServicedependencies(), service2.getServicedependencies()) || SetUtils.intersects(service1.getArrivaldependencies(), service2.getArrivaldependencies())){
 			Hoelder hoelder = nw.createHoelder();
 			SymbolicFunction givensigma = new AdditiveComposition(new AdditiveComposition(service1.getSigma(),service2.getSigma(),hoelder),new BFunction(new NegativeAbsoluteDifference(service1.getRho(),service2.getRho(),hoelder)));
 			SymbolicFunction givenrho = new MaximumFunction(service1.getRho(), service2.getRho(), hoelder);
@@ -240,7 +240,7 @@ public class Service implements Serializable {
 		Service leftoverservice;
 
 		//Dependent CaseedFunctions
-		if(!SetUtils.getIntersection(arrival.getServicedependencies(),service.getServicedependencies()).isEmpty() || !SetUtils.getIntersection(service.getArrivaldependencies(), arrival.getArrivaldependencies()).isEmpty()){
+		if(SetUtils.intersects(arrival.getServicedependencies(), service.getServicedependencies()) || SetUtils.intersects(service.getArrivaldependencies(), arrival.getArrivaldependencies())){
 			Hoelder hoelder = nw.createHoelder();
 			SymbolicFunction givensigma = new AdditiveComposition(arrival.getSigma(),service.getSigma(),hoelder);
 			SymbolicFunction givenrho = new AdditiveComposition(arrival.getRho(),service.getRho(),hoelder);
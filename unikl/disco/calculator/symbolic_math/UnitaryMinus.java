@@ -18,6 +18,8 @@
  */
 package unikl.disco.calculator.symbolic_math;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,7 +30,7 @@ import java.util.Map;
  * @see SymbolicFunction
  *
  */
-public class UnitaryMinus implements SymbolicFunction {
+public class UnitaryMinus implements ComposedFunction {
 
 	//Members
 	SymbolicFunction atom;
@@ -54,6 +56,16 @@ public class UnitaryMinus implements SymbolicFunction {
 	public Map<Integer, Hoelder> getParameters() {
 		return atom.getParameters();
 	}
+
+	@Override
+	public List<SymbolicFunction> getComponents() {
+		return Collections.singletonList(atom);
+	}
+
+	@Override
+	public Hoelder getHoelder() {
+		return null;
+	}
 	
 	@Override
 	public String toString(){
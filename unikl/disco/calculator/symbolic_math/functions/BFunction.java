@@ -18,11 +18,14 @@
  */
 package unikl.disco.calculator.symbolic_math.functions;
 
+import unikl.disco.calculator.symbolic_math.ComposedFunction;
 import unikl.disco.calculator.symbolic_math.SymbolicFunction;
 import unikl.disco.calculator.symbolic_math.ServerOverloadException;
 import unikl.disco.calculator.symbolic_math.ParameterMismatchException;
 import unikl.disco.calculator.symbolic_math.ThetaOutOfBoundException;
 import unikl.disco.calculator.symbolic_math.Hoelder;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -46,11 +49,10 @@ import java.util.Map;
  * @see SymbolicFunction
  *
  */
-public class BFunction implements SymbolicFunction {
+public class BFunction implements ComposedFunction {
 	
 	private static final long serialVersionUID = -393050275685989790L;
 	SymbolicFunction exponent;
-	double maxtheta;
 	private Map<Integer, Hoelder> parameters;
 	
 	//Constructor
@@ -62,7 +64,6 @@ public class BFunction implements SymbolicFunction {
     	
 	public BFunction(SymbolicFunction exponent){
 		this.exponent = exponent;
-		maxtheta = exponent.getmaxTheta();
 		this.parameters = exponent.getParameters();
 	}
 	
@@ -125,7 +126,25 @@ public class BFunction implements SymbolicFunction {
      */
     @Override
 	public double getmaxTheta(){
-		return maxtheta;
+		return exponent.getmaxTheta();
+	}
+
+    /**
+     *
+     * @return
+     */
+    @Override
+	public List<SymbolicFunction> getComponents() {
+		return Collections.singletonList(exponent);
+	}
+
+    /**
+     *
+     * @return
+     */
+    @Override
+	public Hoelder getHoelder() {
+		return null;
 	}
 
 }
\ No newline at end of file
@@ -71,6 +71,14 @@ public class ConstantFunction implements SymbolicFunction {
 		return maxTheta;
 	}
 
+    /**
+     * Returns the value of the function, which is the same for all theta.
+     * @return the constant value
+     */
+	public double getRate(){
+		return rate;
+	}
+
     /**
      *
      * @return
@@ -116,6 +116,20 @@ public class EBBSigma implements SymbolicFunction {
 		return new HashMap<Integer, Hoelder>(0);
 	}
 	
+	/**
+	 * @return the decay-rate of the EBB-arrival
+	 */
+	public double getDecay() {
+		return decay;
+	}
+	
+	/**
+	 * @return the prefactor of the EBB-arrival
+	 */
+	public double getPrefactor() {
+		return prefactor;
+	}
+	
 
 
 }
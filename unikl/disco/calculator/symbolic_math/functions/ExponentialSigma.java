@@ -125,4 +125,11 @@ public class ExponentialSigma implements SymbolicFunction{
 	public Map<Integer, Hoelder> getParameters() {
 		return new HashMap<Integer, Hoelder>(0);
 	}
+
+	/**
+	 * @return the intensity of the exponentially distributed increments
+	 */
+	public double getLambda() {
+		return lambda;
+	}
 }
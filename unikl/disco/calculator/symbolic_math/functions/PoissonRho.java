@@ -18,12 +18,15 @@
  */
 package unikl.disco.calculator.symbolic_math.functions;
 
+import unikl.disco.calculator.symbolic_math.ComposedFunction;
 import unikl.disco.calculator.symbolic_math.SymbolicFunction;
 import unikl.disco.calculator.symbolic_math.ServerOverloadException;
 import unikl.disco.calculator.symbolic_math.ParameterMismatchException;
 import unikl.disco.calculator.symbolic_math.ThetaOutOfBoundException;
 import unikl.disco.calculator.symbolic_math.Hoelder;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /** Class representing the rho-part of the MGF-Bound of an arrival
@@ -41,7 +44,7 @@ import java.util.Map;
  * @see SymbolicFunction
  * @see Arrival
  * @see BadInitializationException
- */public class PoissonRho implements SymbolicFunction {
+ */public class PoissonRho implements ComposedFunction {
 	 
 	//Members
 
@@ -111,4 +114,30 @@ import java.util.Map;
 		return rhoParameters;
 	}
 
+    /**
+     *
+     * @return
+     */
+    @Override
+	public List<SymbolicFunction> getComponents() {
+		return Collections.singletonList(rho);
+	}
+
+    /**
+     *
+     * @return
+     */
+    @Override
+	public Hoelder getHoelder() {
+		return null;
+	}
+
+	/**
+	 * Returns the intensity of the underlying Poisson process.
+	 * @return the intensity
+	 */
+	public double getMu() {
+		return mu;
+	}
+
 }
@@ -119,6 +119,14 @@ public class StationaryTBSigma implements SymbolicFunction {
 		return new HashMap<Integer, Hoelder>(0);
 	}
 	
+	/**
+	 * Returns the bucket size, i.e. the largest burst of the arrival.
+	 * @return the bucket size
+	 */
+	public double getBucket() {
+		return bucket;
+	}
+	
 
 
 }
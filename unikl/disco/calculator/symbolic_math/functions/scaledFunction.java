@@ -18,12 +18,15 @@
  */
 package unikl.disco.calculator.symbolic_math.functions;
 
+import unikl.disco.calculator.symbolic_math.ComposedFunction;
 import unikl.disco.calculator.symbolic_math.SymbolicFunction;
 import unikl.disco.calculator.symbolic_math.ServerOverloadException;
 import unikl.disco.calculator.symbolic_math.ParameterMismatchException;
 import unikl.disco.calculator.symbolic_math.ThetaOutOfBoundException;
 import unikl.disco.calculator.symbolic_math.Hoelder;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -44,7 +47,7 @@ import java.util.Map;
  * @see SymbolicFunction
  * @see BadInitializationException
  */
-public class scaledFunction implements SymbolicFunction {
+public class scaledFunction implements ComposedFunction {
 	
 	//Members
 	
@@ -173,6 +176,32 @@ public class scaledFunction implements SymbolicFunction {
 		copy.put(hoelder.getHoelderID(), hoelder);
 		return copy;
 	}
+
+    /**
+     *
+     * @return
+     */
+    @Override
+	public List<SymbolicFunction> getComponents() {
+		return Collections.singletonList(original);
+	}
+
+    /**
+     *
+     * @return
+     */
+    @Override
+	public Hoelder getHoelder() {
+		return hoelder;
+	}
+
+    /**
+     * Returns whether theta is scaled by the p- or the q-value
+     * @return true, if the p-value is used for scaling
+     */
+	public boolean isPScaled() {
+		return p_scale;
+	}
 	
 	
 }
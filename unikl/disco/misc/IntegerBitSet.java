@@ -0,0 +1,186 @@
+/*
+ *  (c) 2017 Michael A. Beck, Sebastian Henningsen
+ *  		disco | Distributed Computer Systems Lab
+ *  		University of Kaiserslautern, Germany
+ *  All Rights Reserved.
+ *
+ * This software is work in progress and is released in the hope that it will
+ * be useful to the scientific community. It is provided "as is" without
+ * express or implied warranty, including but not limited to the correctness
+ * of the code or its suitability for any particular purpose.
+ *
+ * This software is provided under the MIT License, however, we would 
+ * appreciate it if you contacted the respective authors prior to commercial use.
+ *
+ * If you find our software useful, we would appreciate if you mentioned it
+ * in any publication arising from the use of this software or acknowledge
+ * our work otherwise. We would also like to hear of any fixes or useful
+ */
+package unikl.disco.misc;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of non-negative integers, which is backed by a {@link BitSet}.
+ * Compared to a <code>HashSet&lt;Integer&gt;</code> it needs one bit per
+ * possible element instead of one boxed entry per element, and unions as
+ * well as intersection tests of two such sets are word-wise operations,
+ * which do not allocate any memory. It is used for the IDs of the flows
+ * and vertices, on which arrivals and services depend.
+ *
+ * @author Sebastian Henningsen
+ * @see SetUtils#intersects(java.util.Set, java.util.Set)
+ */
+public class IntegerBitSet extends AbstractSet<Integer> implements Serializable {
+
+    private static final long serialVersionUID = -4237106853018725142L;
+    private final BitSet bits;
+
+    /**
+     * Creates an empty set
+     */
+    public IntegerBitSet() {
+        bits = new BitSet();
+    }
+
+    /**
+     * Creates a set containing the elements of the given collection
+     * @param elements the initial elements
+     */
+    public IntegerBitSet(Collection<Integer> elements) {
+        this();
+        addAll(elements);
+    }
+
+    /**
+     * Returns true, if this set and the given set have at least one
+     * element in common. Nothing is allocated for this.
+     * @param other another set
+     * @return whether the intersection is non-empty
+     */
+    public boolean intersects(IntegerBitSet other) {
+        return bits.intersects(other.bits);
+    }
+
+    @Override
+    public boolean add(Integer element) {
+        if (element < 0) {
+            throw new IllegalArgumentException("Only non-negative integers can be stored, got " + element + ".");
+        }
+        if (bits.get(element)) {
+            return false;
+        }
+        bits.set(element);
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Integer> elements) {
+        if (elements instanceof IntegerBitSet) {
+            int before = bits.cardinality();
+            bits.or(((IntegerBitSet) elements).bits);
+            return bits.cardinality() != before;
+        }
+        return super.addAll(elements);
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return element instanceof Integer && (Integer) element >= 0 && bits.get((Integer) element);
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        if (!contains(element)) {
+            return false;
+        }
+        bits.clear((Integer) element);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> elements) {
+        if (elements instanceof IntegerBitSet) {
+            int before = bits.cardinality();
+            bits.andNot(((IntegerBitSet) elements).bits);
+            return bits.cardinality() != before;
+        }
+        return super.removeAll(elements);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> elements) {
+        if (elements instanceof IntegerBitSet) {
+            int before = bits.cardinality();
+            bits.and(((IntegerBitSet) elements).bits);
+            return bits.cardinality() != before;
+        }
+        return super.retainAll(elements);
+    }
+
+    @Override
+    public void clear() {
+        bits.clear();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return bits.cardinality();
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int next = bits.nextSetBit(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = next == Integer.MAX_VALUE ? -1 : bits.nextSetBit(next + 1);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                bits.clear(last);
+                last = -1;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof IntegerBitSet) {
+            return bits.equals(((IntegerBitSet) o).bits);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // Must agree with the hash code of any other set with the same elements
+        return super.hashCode();
+    }
+}
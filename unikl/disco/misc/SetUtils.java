@@ -74,6 +74,33 @@ public class SetUtils {
     	return result;
     }
 
+    /**
+     * Returns true, if set <code>s1</code> and set <code>s2</code> have at
+     * least one element in common. Unlike testing the result of
+     * {@link #getIntersection(Set, Set)} for emptiness no set is copied.
+     * @param s1 a set
+     * @param s2 another set
+     * @return whether the intersection is non-empty
+     */
+    public static <T> boolean intersects(Set<T> s1, Set<T> s2) {
+		if(s1==null || s2==null)
+			return false;
+		if(s1 instanceof IntegerBitSet && s2 instanceof IntegerBitSet)
+			return ((IntegerBitSet) s1).intersects((IntegerBitSet) s2);
+
+		// Iterate over the smaller set and look up in the larger one
+		if(s1.size() > s2.size()) {
+			Set<T> swap = s1;
+			s1 = s2;
+			s2 = swap;
+		}
+    	for (T element : s1) {
+    		if (s2.contains(element))
+    			return true;
+    	}
+    	return false;
+    }
+
     /**
      * Returns the union of set <code>s1</code> and set <code>s2</code>.
      * @param s1 a set